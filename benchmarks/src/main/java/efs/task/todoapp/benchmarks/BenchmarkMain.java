@@ -0,0 +1,34 @@
+package efs.task.todoapp.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with its usual options, and unless a result format is given, also writes the results as JSON to
+ * <code>jmh-result.json</code>, so runs of different releases can be compared by tools.
+ */
+public final class BenchmarkMain {
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff") && !isInformational(arguments)) {
+            arguments.add("-rf");
+            arguments.add("json");
+            arguments.add("-rff");
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+
+    private static boolean isInformational(List<String> arguments) {
+        return arguments.contains("-h") || arguments.contains("-l") || arguments.contains("-lp")
+                || arguments.contains("-lprof") || arguments.contains("-lrf");
+    }
+}
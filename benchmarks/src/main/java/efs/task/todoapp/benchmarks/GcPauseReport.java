@@ -0,0 +1,135 @@
+package efs.task.todoapp.benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import efs.task.todoapp.repository.CompactTaskStore;
+import efs.task.todoapp.repository.HeapTaskStore;
+import efs.task.todoapp.repository.MappedTaskStore;
+import efs.task.todoapp.repository.MutationLog;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.TaskStore;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports garbage collection pauses while a {@link TaskRepository} holding <code>tasks</code> tasks serves a mixed
+ * query/update/save/delete load. Every store should be measured in its own JVM with the same heap settings, e.g.
+ * <p>
+ * <code>java -Xmx4g -cp benchmarks.jar efs.task.todoapp.benchmarks.GcPauseReport mapped 2000000 60</code>
+ */
+public class GcPauseReport {
+    private static final int OWNERS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        String storeName = args.length > 0 ? args[0] : "heap";
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        TaskStore store = createStore(storeName);
+        TaskRepository repository = new TaskRepository(MutationLog.NONE, store);
+        UUID[] ids = new UUID[tasks];
+        for (int i = 0; i < tasks; i++) {
+            ids[i] = UUID.randomUUID();
+            repository.save(task(ids[i], "owner" + (i % OWNERS)));
+        }
+
+        List<Long> pauses = new ArrayList<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                            (CompositeData) notification.getUserData());
+                    if (!"No GC".equals(info.getGcCause())) {
+                        synchronized (pauses) {
+                            pauses.add(info.getGcInfo().getDuration());
+                        }
+                    }
+                }
+            }, null, null);
+        }
+
+        AtomicLong operations = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    int index = random.nextInt(tasks);
+                    UUID id = ids[index];
+                    int operation = random.nextInt(10);
+                    if (operation < 6) {
+                        repository.query(id);
+                    } else if (operation < 8) {
+                        TaskEntity task = repository.query(id);
+                        if (task != null) {
+                            repository.update(id, task(id, task.getOwner()));
+                        }
+                    } else {
+                        if (repository.delete(id)) {
+                            repository.save(task(id, "owner" + (index % OWNERS)));
+                        }
+                    }
+                    done++;
+                }
+                operations.addAndGet(done);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Long> sorted;
+        synchronized (pauses) {
+            sorted = new ArrayList<>(pauses);
+        }
+        sorted.sort(null);
+        long total = sorted.stream().mapToLong(Long::longValue).sum();
+        System.out.printf("store=%s tasks=%d threads=%d seconds=%d operations/s=%d%n", storeName, tasks, threads,
+                seconds, operations.get() / seconds);
+        System.out.printf("gc pauses=%d total=%d ms p50=%d ms p99=%d ms max=%d ms%n", sorted.size(), total,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        if (store instanceof MappedTaskStore) {
+            ((MappedTaskStore) store).close();
+        }
+    }
+
+    private static TaskStore createStore(String name) throws Exception {
+        switch (name) {
+            case "compact":
+                return new CompactTaskStore();
+            case "mapped":
+                Path file = Files.createTempFile("todo-tasks", ".dat");
+                file.toFile().deleteOnExit();
+                return new MappedTaskStore(file);
+            default:
+                return new HeapTaskStore();
+        }
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.isEmpty() ? 0 : sorted.get(Math.max(0, (int) Math.ceil(percentile * sorted.size()) - 1));
+    }
+
+    private static TaskEntity task(UUID id, String owner) {
+        TaskEntity task = new TaskEntity("Buy milk and bread", "2021-06-30");
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+}
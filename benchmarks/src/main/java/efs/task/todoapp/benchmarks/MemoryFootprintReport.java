@@ -0,0 +1,66 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.repository.CompactTaskStore;
+import efs.task.todoapp.repository.HeapTaskStore;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reports the heap retained per task by the task stores, compared with a plain <code>HashMap&lt;UUID,
+ * TaskEntity&gt;</code>. Tasks are built like the handler builds them, so every task has its own owner and due date
+ * strings. The owner index of the repository is not included.
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar efs.task.todoapp.benchmarks.MemoryFootprintReport [tasks]</code>
+ */
+public class MemoryFootprintReport {
+    private static final int OWNERS = 1_000;
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-30s %12s %14s%n", "Store", "Tasks", "Bytes per task");
+        report("HashMap<UUID, TaskEntity>", tasks, () -> {
+            Map<UUID, TaskEntity> map = new HashMap<>();
+            fill(tasks, task -> map.put(task.getId(), task));
+            return map;
+        });
+        report("HeapTaskStore", tasks, () -> fill(tasks, new HeapTaskStore()));
+        report("CompactTaskStore", tasks, () -> fill(tasks, new CompactTaskStore()));
+    }
+
+    private static void report(String name, int tasks, Supplier<Object> store) {
+        long before = usedHeap();
+        Object retained = store.get();
+        long after = usedHeap();
+        System.out.printf("%-30s %12d %14.1f%n", name, tasks, (after - before) / (double) tasks);
+        Reference.reachabilityFence(retained);
+    }
+
+    private static TaskStore fill(int tasks, TaskStore store) {
+        fill(tasks, store::put);
+        return store;
+    }
+
+    private static void fill(int tasks, Consumer<TaskEntity> store) {
+        for (int i = 0; i < tasks; i++) {
+            TaskEntity task = new TaskEntity("Buy milk and bread no. " + i, new String("2021-06-30"));
+            task.setId(UUID.randomUUID());
+            task.setOwner("owner" + (i % OWNERS));
+            store.accept(task);
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,67 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.CredentialCache;
+import efs.task.todoapp.service.PasswordHasher;
+import efs.task.todoapp.service.ToDoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of authenticating a task request when the verified credential is served from the cache and when the
+ * password hash is computed for every request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordVerificationBenchmark {
+    private static final String USERNAME = "janKowalski";
+    private static final String PASSWORD = "am!sK#123";
+
+    @Param({"210000"})
+    public int iterations;
+
+    private ToDoService service;
+    private String auth;
+    private List<String> userData;
+
+    @Setup
+    public void setUp() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        service = new ToDoService(new UserRepository(), new TaskRepository(),
+                new CredentialCache(10_000, 5, TimeUnit.MINUTES), new PasswordHasher(iterations, cores, 256));
+        service.saveUser(new UserEntity(USERNAME, PASSWORD));
+        Base64.Encoder encoder = Base64.getEncoder();
+        auth = encoder.encodeToString(USERNAME.getBytes()) + ":" + encoder.encodeToString(PASSWORD.getBytes());
+        userData = List.of(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    public String withCache() throws Exception {
+        String username = service.getVerifiedUser(auth);
+        return username != null ? username : service.verifyUser(auth, userData);
+    }
+
+    @Benchmark
+    public String withoutCache() throws Exception {
+        return service.verifyUser(auth, userData);
+    }
+}
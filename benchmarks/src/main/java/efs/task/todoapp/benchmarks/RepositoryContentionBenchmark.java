@@ -0,0 +1,97 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed save/query/update/delete load on a shared {@link TaskRepository}. The nested classes run the same benchmarks
+ * with 1, 4 and 16 threads, so the throughput of the three runs shows how the repository scales across cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class RepositoryContentionBenchmark {
+    private static final int OWNERS = 1_000;
+
+    @Param({"100000"})
+    public int tasks;
+
+    private TaskRepository repository;
+    private UUID[] ids;
+
+    @Setup
+    public void setUp() {
+        repository = new TaskRepository();
+        ids = new UUID[tasks];
+        for (int i = 0; i < tasks; i++) {
+            ids[i] = UUID.randomUUID();
+            repository.save(task(ids[i], "owner" + (i % OWNERS)));
+        }
+    }
+
+    @Benchmark
+    public TaskEntity query() {
+        return repository.query(randomId());
+    }
+
+    @Benchmark
+    public TaskEntity update() {
+        UUID id = randomId();
+        TaskEntity task = repository.query(id);
+        return task == null ? null : repository.update(id, task(id, task.getOwner()));
+    }
+
+    @Benchmark
+    public boolean deleteAndSave() {
+        UUID id = randomId();
+        TaskEntity task = repository.query(id);
+        return task != null && repository.delete(id, task) && repository.save(task) != null;
+    }
+
+    @Benchmark
+    public int queryByOwner() {
+        return repository.queryByOwner("owner" + ThreadLocalRandom.current().nextInt(OWNERS)).size();
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static TaskEntity task(UUID id, String owner) {
+        TaskEntity task = new TaskEntity("Buy milk", "2021-06-30");
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    @Threads(1)
+    public static class OneThread extends RepositoryContentionBenchmark {
+    }
+
+    @Threads(4)
+    public static class FourThreads extends RepositoryContentionBenchmark {
+    }
+
+    @Threads(16)
+    public static class SixteenThreads extends RepositoryContentionBenchmark {
+    }
+}
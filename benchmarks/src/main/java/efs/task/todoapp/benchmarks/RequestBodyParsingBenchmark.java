@@ -0,0 +1,72 @@
+package efs.task.todoapp.benchmarks;
+
+import com.google.gson.Gson;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.web.RequestBodyReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to turn request bodies into entities by reading all bytes into a string and binding it with Gson, as the
+ * handlers did, and by streaming them through {@link RequestBodyReader}. Run with <code>-prof gc</code> to compare
+ * the allocations per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBodyParsingBenchmark {
+    private static final Gson gson = new Gson();
+
+    @Param({"16", "1024", "16384"})
+    public int descriptionLength;
+
+    private byte[] taskBody;
+    private byte[] userBody;
+
+    @Setup
+    public void setUp() {
+        taskBody = gson.toJson(new TaskEntity("x".repeat(descriptionLength), "2021-06-30"))
+                .getBytes(StandardCharsets.UTF_8);
+        userBody = gson.toJson(new UserEntity("janKowalski", "am!sK#123")).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public TaskEntity taskGsonFromString() throws IOException {
+        String body = new String(new ByteArrayInputStream(taskBody).readAllBytes(), StandardCharsets.UTF_8);
+        return gson.fromJson(body, TaskEntity.class);
+    }
+
+    @Benchmark
+    public TaskEntity taskStreaming() throws IOException {
+        return RequestBodyReader.readTask(new ByteArrayInputStream(taskBody));
+    }
+
+    @Benchmark
+    public UserEntity userNewGsonFromString() throws IOException {
+        String body = new String(new ByteArrayInputStream(userBody).readAllBytes());
+        return new Gson().fromJson(body, UserEntity.class);
+    }
+
+    @Benchmark
+    public UserEntity userStreaming() throws IOException {
+        return RequestBodyReader.readUser(new ByteArrayInputStream(userBody));
+    }
+}
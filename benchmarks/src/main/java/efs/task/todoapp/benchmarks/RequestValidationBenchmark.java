@@ -0,0 +1,70 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.ToDoService;
+import efs.task.todoapp.service.exceptions.BadRequestException;
+import efs.task.todoapp.web.HttpTaskHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the checks every task request goes through before reaching the repository: decoding the
+ * <code>auth</code> header and validating the task body, including parsing of its due date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestValidationBenchmark {
+    private static final String AUTH = "amFuS293YWxza2k=:YW0hc0sjMTIz";
+    private static final String MALFORMED_AUTH = "amFuS293YWxza2k=:YW0hc0sjMTIz!";
+
+    private final ToDoService service = new ToDoService(new UserRepository(), new TaskRepository());
+    private final HttpTaskHandler handler = new HttpTaskHandler(service);
+    private final TaskEntity taskWithDue = new TaskEntity("Buy milk", "2021-06-30");
+    private final TaskEntity taskWithoutDue = new TaskEntity("Buy milk", null);
+    private final TaskEntity taskWithInvalidDue = new TaskEntity("Buy milk", "2021-13-30");
+
+    @Benchmark
+    public List<String> handleTaskHeader() {
+        return handler.handleTaskHeader(AUTH);
+    }
+
+    @Benchmark
+    public List<String> handleMalformedTaskHeader() {
+        return handler.handleTaskHeader(MALFORMED_AUTH);
+    }
+
+    @Benchmark
+    public boolean isTaskValidWithDue() throws BadRequestException {
+        return service.isTaskValid(taskWithDue);
+    }
+
+    @Benchmark
+    public boolean isTaskValidWithoutDue() throws BadRequestException {
+        return service.isTaskValid(taskWithoutDue);
+    }
+
+    @Benchmark
+    public boolean isTaskValidWithInvalidDue() {
+        try {
+            return service.isTaskValid(taskWithInvalidDue);
+        } catch (BadRequestException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.web.Route;
+import efs.task.todoapp.web.TaskRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of matching a request path: the former <code>String.matches</code> + <code>split</code> approach against
+ * {@link TaskRouter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteMatchBenchmark {
+    private static final String ID_PATTERN =
+            "/todo/task/[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+
+    @Param({"/todo/task", "/todo/task/237e9877-e79b-12d4-a765-321741963000", "/todo/task/unknown"})
+    public String path;
+
+    @Benchmark
+    public String regex() {
+        if (path.matches("/todo/task")) {
+            return "";
+        } else if (path.matches(ID_PATTERN)) {
+            return path.split("/")[3];
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Route router() {
+        return TaskRouter.route("GET", path);
+    }
+}
@@ -0,0 +1,95 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.persistence.SnapshotManager;
+import efs.task.todoapp.persistence.WriteAheadLog;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to restart the application from a data directory holding a snapshot of <code>tasks</code> tasks and a log tail
+ * of <code>tail</code> records written after it. The 10M run needs a heap of several gigabytes.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    private static final int OWNERS = 10_000;
+
+    @Param({"1000000", "10000000"})
+    public int tasks;
+
+    @Param({"10000"})
+    public int tail;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("todo-startup");
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            UserRepository userRepository = new UserRepository(log);
+            SnapshotManager snapshots = new SnapshotManager(directory, log, taskRepository, userRepository);
+            snapshots.recover();
+            for (int i = 0; i < OWNERS; i++) {
+                userRepository.restore(new UserEntity("owner" + i, null, "pbkdf2-sha256$1$c2FsdA==$aGFzaA=="));
+            }
+            for (int i = 0; i < tasks; i++) {
+                taskRepository.restore(task("owner" + (i % OWNERS)));
+            }
+            taskRepository.save(task("owner0"));
+            snapshots.snapshot();
+            for (int i = 0; i < tail; i++) {
+                taskRepository.save(task("owner" + (i % OWNERS)));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TaskRepository recover() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            new SnapshotManager(directory, log, taskRepository, new UserRepository(log)).recover();
+            return taskRepository;
+        }
+    }
+
+    private static TaskEntity task(String owner) {
+        TaskEntity task = new TaskEntity("Buy milk and bread", "2021-06-30");
+        task.setId(UUID.randomUUID());
+        task.setOwner(owner);
+        return task;
+    }
+}
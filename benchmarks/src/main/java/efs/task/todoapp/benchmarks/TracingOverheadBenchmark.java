@@ -0,0 +1,67 @@
+package efs.task.todoapp.benchmarks;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracer;
+import efs.task.todoapp.tracing.Tracing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the spans around a repository lookup when tracing is disabled, enabled without a trace on the thread, and
+ * enabled inside a trace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings("try")
+public class TracingOverheadBenchmark {
+    @Param({"disabled", "enabled", "traced"})
+    public String tracing;
+
+    private final TaskRepository repository = new TaskRepository();
+    private final UUID id = UUID.randomUUID();
+    private Tracer tracer;
+
+    @Setup
+    public void setUp() {
+        TaskEntity task = new TaskEntity("Buy milk", "2021-06-30");
+        task.setId(id);
+        task.setOwner("janKowalski");
+        repository.save(task);
+        tracer = tracing.equals("disabled") ? null : new Tracer(8192, Long.MAX_VALUE / 1_000_000);
+        Tracing.install(tracer);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Tracing.install(null);
+    }
+
+    @Benchmark
+    public TaskEntity query() {
+        if (!tracing.equals("traced")) {
+            return repository.query(id);
+        }
+        try (Span root = tracer.begin("trace", "GET_TASK")) {
+            return repository.query(id);
+        }
+    }
+}
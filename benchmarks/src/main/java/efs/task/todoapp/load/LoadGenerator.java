@@ -0,0 +1,293 @@
+package efs.task.todoapp.load;
+
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.ToDoApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the server in-process on localhost, registers users through <code>/todo/user</code> and drives a mix of
+ * task requests at a constant arrival rate, e.g.
+ * <p>
+ * <code>java -cp benchmarks.jar efs.task.todoapp.load.LoadGenerator users=100 rate=2000 duration=60
+ * mix=post:20,get:50,put:20,delete:10</code>
+ * <p>
+ * The load is open-loop: requests are sent at their scheduled times whether or not earlier ones have completed, and
+ * latency is measured from the scheduled time, so a stalled server shows up in the percentiles instead of silently
+ * lowering the rate. Requests which would exceed <code>inFlight</code> outstanding requests are counted as dropped.
+ * Requests of the warmup period are sent but not reported. The server is configured by the usual
+ * <code>todo.*</code> system properties.
+ */
+public class LoadGenerator {
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String BASE_URI = "http://localhost:8080/todo/";
+
+    enum Operation {
+        POST, GET, LIST, PUT, DELETE
+    }
+
+    private final HttpClient client;
+    private final List<User> users = new ArrayList<>();
+    private final Map<Operation, Integer> mix;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    LoadGenerator(HttpClient client, Map<Operation, Integer> mix) {
+        this.client = client;
+        this.mix = mix;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int userCount = Integer.parseInt(options.getOrDefault("users", "50"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "500"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("inFlight", "10000"));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", "post:20,get:40,list:10,put:20,delete:10"));
+
+        HttpServer server = new ToDoApplication().createServer();
+        server.start();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clientExecutor)
+                    .build();
+            LoadGenerator generator = new LoadGenerator(client, mix);
+            generator.registerUsers(userCount);
+            generator.run(rate, warmup, false, maxInFlight);
+            long started = System.nanoTime();
+            generator.run(rate, duration, true, maxInFlight);
+            generator.awaitCompletion(TimeUnit.SECONDS.toNanos(30));
+            double seconds = (System.nanoTime() - started) / 1e9;
+            generator.report(rate, seconds);
+        } finally {
+            server.stop(0);
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    void registerUsers(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            User user = new User("load-user-" + i + "-" + System.nanoTime(), "password" + i);
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(BASE_URI + "user"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + user.username
+                            + "\",\"password\":\"" + user.password + "\"}"))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Registering " + user.username + " failed: " + response.statusCode());
+            }
+            users.add(user);
+        }
+    }
+
+    /**
+     * Sends requests at the given rate for the given number of seconds from the calling thread.
+     */
+    void run(int rate, int seconds, boolean record, int maxInFlight) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long requests = (long) rate * seconds;
+        for (long i = 0; i < requests; i++) {
+            long scheduled = start + i * interval;
+            long delay = scheduled - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                if (record) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            send(scheduled, record);
+        }
+    }
+
+    private void send(long scheduled, boolean record) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = users.get(random.nextInt(users.size()));
+        Operation operation = pickOperation(random.nextInt(100));
+        String id = null;
+        if (operation == Operation.DELETE) {
+            id = user.taskIds.pollFirst();
+        } else if (operation == Operation.GET || operation == Operation.PUT) {
+            id = user.taskIds.peekLast();
+        }
+        if (id == null && operation != Operation.LIST) {
+            operation = Operation.POST;
+        }
+        Operation sent = operation;
+        String taskId = id;
+        inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<String>> response =
+                client.sendAsync(request(sent, user, taskId), HttpResponse.BodyHandlers.ofString());
+        response.whenComplete((result, failure) -> {
+            inFlight.decrementAndGet();
+            boolean success = failure == null && result.statusCode() / 100 == 2;
+            if (sent == Operation.POST && success) {
+                Matcher matcher = ID.matcher(result.body());
+                if (matcher.find()) {
+                    user.taskIds.addLast(matcher.group(1));
+                }
+            } else if (sent == Operation.DELETE && !success) {
+                user.taskIds.addLast(taskId);
+            }
+            if (record) {
+                stats.get(sent).record(System.nanoTime() - scheduled, success);
+            }
+        });
+    }
+
+    private HttpRequest request(Operation operation, User user, String id) {
+        String body = "{\"description\":\"Buy milk " + ThreadLocalRandom.current().nextInt(1000)
+                + "\",\"due\":\"2021-06-30\"}";
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .header("auth", user.auth)
+                .timeout(Duration.ofSeconds(30));
+        switch (operation) {
+            case POST:
+                return builder.uri(URI.create(BASE_URI + "task"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            case LIST:
+                return builder.uri(URI.create(BASE_URI + "task")).GET().build();
+            case GET:
+                return builder.uri(URI.create(BASE_URI + "task/" + id)).GET().build();
+            case PUT:
+                return builder.uri(URI.create(BASE_URI + "task/" + id))
+                        .PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+            default:
+                return builder.uri(URI.create(BASE_URI + "task/" + id)).DELETE().build();
+        }
+    }
+
+    private Operation pickOperation(int percent) {
+        int cumulative = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            cumulative += entry.getValue();
+            if (percent < cumulative) {
+                return entry.getKey();
+            }
+        }
+        return Operation.POST;
+    }
+
+    void awaitCompletion(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    void report(int rate, double seconds) {
+        LatencyHistogram all = new LatencyHistogram();
+        long errors = 0;
+        System.out.printf("users=%d target rate=%d/s seconds=%.1f dropped=%d%n", users.size(), rate, seconds,
+                dropped.sum());
+        System.out.printf("%-8s %10s %8s %10s %10s %10s %10s %10s %10s%n", "request", "count", "errors", "rate/s",
+                "p50 ms", "p99 ms", "p999 ms", "max ms", "mean ms");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats operationStats = entry.getValue();
+            if (operationStats.histogram.getCount() > 0) {
+                print(entry.getKey().name(), operationStats.histogram, operationStats.errors.sum(), seconds);
+                errors += operationStats.errors.sum();
+                operationStats.histogram.copyInto(all);
+            }
+        }
+        print("ALL", all, errors, seconds);
+    }
+
+    private static void print(String name, LatencyHistogram histogram, long errors, double seconds) {
+        System.out.printf("%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n", name, histogram.getCount(),
+                errors, histogram.getCount() / seconds, millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMax()), histogram.getMean() / 1e6);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        int total = 0;
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            int percent = Integer.parseInt(weight[1].trim());
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), percent);
+            total += percent;
+        }
+        if (total != 100) {
+            throw new IllegalArgumentException("Request mix must add up to 100 but adds up to " + total);
+        }
+        return mix;
+    }
+
+    private static final class User {
+        private final String username;
+        private final String password;
+        private final String auth;
+        private final ConcurrentLinkedDeque<String> taskIds = new ConcurrentLinkedDeque<>();
+
+        private User(String username, String password) {
+            this.username = username;
+            this.password = password;
+            Base64.Encoder encoder = Base64.getEncoder();
+            this.auth = encoder.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + ":"
+                    + encoder.encodeToString(password.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long latency, boolean success) {
+            histogram.record(latency);
+            if (!success) {
+                errors.increment();
+            }
+        }
+    }
+}
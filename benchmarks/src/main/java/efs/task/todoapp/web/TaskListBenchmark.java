@@ -0,0 +1,112 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.ToDoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the <code>GET /todo/task</code> path behind authentication for owners with a growing number of tasks:
+ * listing them with {@link ToDoService#getTasksList(String)} and serializing the list as the handler does, compared
+ * with serializing it into a string with Gson, with streaming the tasks from {@link ToDoService#getTasks(String)}
+ * without a list, and with writing the list from {@link ToDoService#getCachedTasksList} (lists of 10000 tasks exceed
+ * the cache entry bound and are not cached, so they are streamed). It lives in the <code>web</code> package to reach
+ * {@link TaskJsonWriter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskListBenchmark {
+    private static final String OWNER = "janKowalski";
+    private static final Gson gson = new Gson();
+
+    @Param({"10", "100", "1000", "10000"})
+    public int tasks;
+
+    private ToDoService service;
+    private List<TaskEntity> list;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() {
+        service = new ToDoService(new UserRepository(), new TaskRepository());
+        for (int i = 0; i < tasks; i++) {
+            service.saveTask(new TaskEntity("Buy milk " + i, i % 2 == 0 ? "2021-06-30" : null), OWNER);
+            service.saveTask(new TaskEntity("Buy bread " + i, "2021-07-01"), "other" + i % 10);
+        }
+        list = service.getTasksList(OWNER);
+        if (service.isTasksListCacheable(list.size())) {
+            try {
+                service.cacheTasksList(OWNER, service.getTasksVersion(OWNER), TaskJsonWriter.tasksToBytes(list));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TaskEntity> getTasksList() {
+        return service.getTasksList(OWNER);
+    }
+
+    @Benchmark
+    public int writeTasks() throws IOException {
+        out.reset();
+        TaskJsonWriter.writeTasks(out, list);
+        return out.size();
+    }
+
+    @Benchmark
+    public void gsonToJson(Blackhole blackhole) {
+        blackhole.consume(gson.toJson(list).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public int listAndWrite() throws IOException {
+        out.reset();
+        TaskJsonWriter.writeTasks(out, service.getTasksList(OWNER));
+        return out.size();
+    }
+
+    @Benchmark
+    public int iterateAndWrite() throws IOException {
+        out.reset();
+        TaskJsonWriter.writeTasks(out, service.getTasks(OWNER));
+        return out.size();
+    }
+
+    @Benchmark
+    public int cachedListAndWrite() throws IOException {
+        out.reset();
+        byte[] body = service.getCachedTasksList(OWNER, service.getTasksVersion(OWNER));
+        if (body == null) {
+            TaskJsonWriter.writeTasks(out, service.getTasks(OWNER));
+        } else {
+            out.write(body);
+        }
+        return out.size();
+    }
+}
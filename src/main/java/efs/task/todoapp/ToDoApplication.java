@@ -12,6 +12,7 @@ public class ToDoApplication {
         var application = new ToDoApplication();
         var server = application.createServer();
         server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(0)));
 
         LOGGER.info("ToDoApplication's server started ...");
     }
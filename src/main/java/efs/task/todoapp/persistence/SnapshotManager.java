@@ -0,0 +1,278 @@
+package efs.task.todoapp.persistence;
+
+import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Bounds the restart time by periodically writing a snapshot of the repositories and deleting the log segments it
+ * covers.
+ * <p>
+ * A snapshot is taken by rolling the log to a new segment and then walking the repositories while requests are
+ * handled. Every mutation of the older segments is already visible to the walk, and mutations made during the walk
+ * are in the new segment, so replaying it on top of the snapshot restores the current state. The file
+ * <code>snapshot-N.bin</code> therefore covers all segments numbered lower than <code>N</code>.
+ * <p>
+ * The snapshot consists of a header, records framed as <code>length, payload</code> with the same payloads as the
+ * log, the record count and a CRC32 of everything before it. It is loaded through memory-mapped windows.
+ */
+public class SnapshotManager implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    private static final int MAGIC = 0x54444F53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 12;
+    private static final long WINDOW_BYTES = 1L << 30;
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+
+    private final Path directory;
+    private final WriteAheadLog log;
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private ScheduledExecutorService scheduler;
+    private long snapshotPosition = -1;
+
+    public SnapshotManager(Path directory, WriteAheadLog log, TaskRepository taskRepository,
+                           UserRepository userRepository) {
+        this.directory = directory;
+        this.log = log;
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Loads the latest snapshot into the repositories, replays the log segments written after it and starts the log.
+     *
+     * @return number of replayed log records
+     */
+    public synchronized long recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.tmp")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        List<Long> snapshots = snapshots();
+        long fromSegment = 0;
+        if (!snapshots.isEmpty()) {
+            fromSegment = snapshots.get(snapshots.size() - 1);
+            long entities = load(snapshotFile(fromSegment));
+            LOGGER.info("Loaded " + entities + " entities from snapshot " + snapshotFile(fromSegment));
+        }
+        long records = log.replay(fromSegment, taskRepository, userRepository);
+        snapshotPosition = records == 0 ? log.appendedPosition() : -1;
+        return records;
+    }
+
+    /**
+     * Writes a new snapshot and deletes the snapshots and log segments it makes obsolete. Does nothing if nothing was
+     * logged since the previous snapshot.
+     */
+    public synchronized void snapshot() throws IOException {
+        long position = log.appendedPosition();
+        if (position == snapshotPosition) {
+            return;
+        }
+        long segment = log.roll();
+        Path file = snapshotFile(segment);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        long entities = write(temporary);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        for (long number : snapshots()) {
+            if (number < segment) {
+                Files.deleteIfExists(snapshotFile(number));
+            }
+        }
+        log.deleteSegmentsBefore(segment);
+        snapshotPosition = position;
+        LOGGER.info("Wrote " + entities + " entities to snapshot " + file);
+    }
+
+    /**
+     * Takes snapshots in the background with the given delay between them.
+     */
+    public synchronized void schedule(long interval, TimeUnit unit) {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "todo-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotInBackground, interval, interval, unit);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void snapshotInBackground() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe("Writing snapshot to " + directory + " failed: " + e.getMessage());
+        }
+    }
+
+    private long write(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        long[] entities = new long[1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            WriteAheadLog.Buffer record = new WriteAheadLog.Buffer();
+            DataOutputStream recordOutput = new DataOutputStream(record);
+            try {
+                userRepository.forEach(user -> {
+                    try {
+                        record.reset();
+                        recordOutput.writeByte(WriteAheadLog.USER_SAVED);
+                        WriteAheadLog.writeUser(recordOutput, user);
+                        writeRecord(output, record);
+                        entities[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                taskRepository.forEach(task -> {
+                    try {
+                        record.reset();
+                        recordOutput.writeByte(WriteAheadLog.TASK_SAVED);
+                        WriteAheadLog.writeTask(recordOutput, task);
+                        writeRecord(output, record);
+                        entities[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            output.writeLong(entities[0]);
+            output.writeInt((int) crc.getValue());
+            output.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return entities[0];
+    }
+
+    private static void writeRecord(DataOutputStream output, WriteAheadLog.Buffer record) throws IOException {
+        output.writeInt(record.size());
+        output.write(record.array(), 0, record.size());
+    }
+
+    private long load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            long end = size - TRAILER_BYTES;
+            ByteBuffer window = map(channel, 0, end);
+            long windowStart = 0;
+            if (window.getInt(0) != MAGIC || window.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot " + file);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(window.duplicate().limit(HEADER_BYTES));
+            long position = HEADER_BYTES;
+            long records = 0;
+            while (position < end) {
+                if (position + Integer.BYTES > windowStart + window.limit()) {
+                    window = map(channel, position, end);
+                    windowStart = position;
+                }
+                int offset = (int) (position - windowStart);
+                int length = window.getInt(offset);
+                if (length <= 0 || length > end - position - Integer.BYTES) {
+                    throw new IOException("Snapshot " + file + " is corrupted at offset " + position);
+                }
+                if (offset + Integer.BYTES + length > window.limit()) {
+                    window = map(channel, position, end);
+                    windowStart = position;
+                    offset = 0;
+                }
+                ByteBuffer record = window.duplicate().position(offset).limit(offset + Integer.BYTES + length);
+                crc.update(record.duplicate());
+                WriteAheadLog.apply(record.position(offset + Integer.BYTES), taskRepository, userRepository);
+                position += Integer.BYTES + length;
+                records++;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, end + trailer.position()) < 0) {
+                    throw new IOException("Snapshot " + file + " is truncated");
+                }
+            }
+            crc.update(trailer.array(), 0, Long.BYTES);
+            trailer.flip();
+            if (trailer.getLong() != records || trailer.getInt() != (int) crc.getValue()) {
+                throw new IOException("Snapshot " + file + " is corrupted");
+            }
+            return records;
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long end) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(end - position, WINDOW_BYTES));
+    }
+
+    private List<Long> snapshots() throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.bin")) {
+            for (Path file : files) {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    snapshots.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    private Path snapshotFile(long segment) {
+        return directory.resolve(String.format("snapshot-%020d.bin", segment));
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.fine("Directory " + directory + " cannot be synced: " + e.getMessage());
+        }
+    }
+}
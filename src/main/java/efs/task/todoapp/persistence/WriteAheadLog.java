@@ -0,0 +1,511 @@
+package efs.task.todoapp.persistence;
+
+import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.repository.MutationLog;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of repository mutations with group commit. Appends only copy the record into a buffer; a single
+ * flusher thread writes everything appended so far and forces it to disk with one <code>fsync</code>, so concurrent
+ * writers waiting in {@link #sync(long)} share the cost of one flush.
+ * <p>
+ * The log is split into numbered segment files, so that segments already covered by a snapshot can be deleted after
+ * {@link #roll()}. Every record is framed as <code>length, crc32, payload</code>. On {@link #replay} a torn or
+ * corrupted tail of the last segment left by a crash is truncated.
+ */
+public class WriteAheadLog implements MutationLog, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    static final byte TASK_SAVED = 1;
+    static final byte TASK_DELETED = 2;
+    static final byte USER_SAVED = 3;
+    static final byte USER_DELETED = 4;
+    private static final int HEADER_BYTES = 8;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+
+    private final Path directory;
+    private final Object lock = new Object();
+    private final Thread flusher;
+    private FileChannel channel;
+    private long segment;
+    private Buffer pending = new Buffer();
+    private long appendedPosition;
+    private long durablePosition;
+    private boolean started;
+    private boolean rolling;
+    private boolean closed;
+    private IOException failure;
+
+    private WriteAheadLog(Path directory) {
+        this.directory = directory;
+        this.flusher = new Thread(this::flushLoop, "todo-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the log kept in the given directory. No records are accepted before the log is replayed.
+     *
+     * @param directory directory of the log segments, created if missing
+     */
+    public static WriteAheadLog open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new WriteAheadLog(directory);
+    }
+
+    /**
+     * Applies all records of the log to the repositories and starts accepting new records.
+     *
+     * @return number of replayed records
+     */
+    public long replay(TaskRepository taskRepository, UserRepository userRepository) throws IOException {
+        return replay(0, taskRepository, userRepository);
+    }
+
+    /**
+     * Applies the records of segments numbered <code>fromSegment</code> or higher to the repositories and starts
+     * accepting new records, appended to the last segment.
+     *
+     * @param fromSegment first segment to be replayed, older segments are ignored
+     * @return number of replayed records
+     */
+    public long replay(long fromSegment, TaskRepository taskRepository, UserRepository userRepository)
+            throws IOException {
+        List<Long> segments = segments(directory);
+        segments.removeIf(number -> number < fromSegment);
+        long records = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            Path file = segmentFile(directory, segments.get(i));
+            FileChannel segmentChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                long position = 0;
+                DataInputStream input = new DataInputStream(
+                        new BufferedInputStream(Channels.newInputStream(segmentChannel)));
+                CRC32 crc = new CRC32();
+                while (true) {
+                    byte[] payload;
+                    try {
+                        int length = input.readInt();
+                        int checksum = input.readInt();
+                        if (length <= 0 || length > segmentChannel.size() - position - HEADER_BYTES) {
+                            break;
+                        }
+                        payload = new byte[length];
+                        input.readFully(payload);
+                        crc.reset();
+                        crc.update(payload);
+                        if ((int) crc.getValue() != checksum) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    apply(ByteBuffer.wrap(payload), taskRepository, userRepository);
+                    position += HEADER_BYTES + payload.length;
+                    records++;
+                }
+                if (position < segmentChannel.size()) {
+                    if (!last) {
+                        throw new IOException("Log segment " + file + " is corrupted at offset " + position);
+                    }
+                    LOGGER.warning("Truncating " + (segmentChannel.size() - position) + " bytes of incomplete log "
+                            + file);
+                    segmentChannel.truncate(position);
+                }
+                if (last) {
+                    segmentChannel.position(position);
+                    channel = segmentChannel;
+                    segment = segments.get(i);
+                    segmentChannel = null;
+                }
+            } finally {
+                if (segmentChannel != null) {
+                    segmentChannel.close();
+                }
+            }
+        }
+        if (channel == null) {
+            segment = Math.max(fromSegment, 1);
+            channel = openSegment(segment);
+        }
+        start();
+        return records;
+    }
+
+    /**
+     * Makes all records appended so far durable and directs further records to a new segment. Appends wait until
+     * the switch is done.
+     *
+     * @return number of the new segment, every record appended before the call is in an older segment
+     */
+    public long roll() throws IOException {
+        synchronized (lock) {
+            if (!started || closed) {
+                throw new IllegalStateException("Log " + directory + " is not open for writing");
+            }
+            rolling = true;
+            try {
+                while (durablePosition < appendedPosition && failure == null) {
+                    lock.wait();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                FileChannel next = openSegment(segment + 1);
+                channel.close();
+                channel = next;
+                return ++segment;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while rolling the log");
+            } finally {
+                rolling = false;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments numbered lower than the given one, once their records are covered by a snapshot.
+     *
+     * @param firstKept number of the oldest segment to be kept
+     */
+    public void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (long number : segments(directory)) {
+            if (number < firstKept) {
+                Files.deleteIfExists(segmentFile(directory, number));
+            }
+        }
+    }
+
+    @Override
+    public long taskSaved(TaskEntity task) {
+        Buffer record = new Buffer();
+        DataOutputStream output = new DataOutputStream(record);
+        try {
+            output.writeByte(TASK_SAVED);
+            writeTask(output, task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(record);
+    }
+
+    @Override
+    public long taskDeleted(UUID id) {
+        Buffer record = new Buffer();
+        DataOutputStream output = new DataOutputStream(record);
+        try {
+            output.writeByte(TASK_DELETED);
+            output.writeLong(id.getMostSignificantBits());
+            output.writeLong(id.getLeastSignificantBits());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(record);
+    }
+
+    @Override
+    public long userSaved(UserEntity user) {
+        Buffer record = new Buffer();
+        DataOutputStream output = new DataOutputStream(record);
+        try {
+            output.writeByte(USER_SAVED);
+            writeUser(output, user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(record);
+    }
+
+    @Override
+    public long userDeleted(String username) {
+        Buffer record = new Buffer();
+        DataOutputStream output = new DataOutputStream(record);
+        try {
+            output.writeByte(USER_DELETED);
+            writeString(output, username);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(record);
+    }
+
+    @Override
+    public void sync(long position) {
+        synchronized (lock) {
+            while (durablePosition < position && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new IOException("Interrupted while waiting for the log", e));
+                }
+            }
+            if (durablePosition < position) {
+                throw new UncheckedIOException(failure);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        if (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (lock) {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    long appendedPosition() {
+        synchronized (lock) {
+            return appendedPosition;
+        }
+    }
+
+    static List<Long> segments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("wal-%020d.log", number));
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel segmentChannel = FileChannel.open(segmentFile(directory, number), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentChannel.position(segmentChannel.size());
+        return segmentChannel;
+    }
+
+    private void start() {
+        synchronized (lock) {
+            started = true;
+        }
+        flusher.start();
+    }
+
+    private long append(Buffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.size());
+        synchronized (lock) {
+            while (rolling) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new IOException("Interrupted while waiting for the log", e));
+                }
+            }
+            if (!started || closed) {
+                throw new IllegalStateException("Log " + directory + " is not open for writing");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            pending.writeInt(record.size());
+            pending.writeInt((int) crc.getValue());
+            pending.write(record.array(), 0, record.size());
+            appendedPosition += HEADER_BYTES + record.size();
+            lock.notifyAll();
+            return appendedPosition;
+        }
+    }
+
+    private void flushLoop() {
+        Buffer batch = new Buffer();
+        while (true) {
+            long batchEnd;
+            FileChannel target;
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                Buffer full = pending;
+                pending = batch;
+                batch = full;
+                batchEnd = appendedPosition;
+                target = channel;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.array(), 0, batch.size());
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                target.force(false);
+                synchronized (lock) {
+                    durablePosition = batchEnd;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                LOGGER.severe("Writing log " + directory + " failed: " + e.getMessage());
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            batch.reset();
+        }
+    }
+
+    /**
+     * Applies a single record payload, starting at the current position of the buffer.
+     */
+    static void apply(ByteBuffer payload, TaskRepository taskRepository, UserRepository userRepository)
+            throws IOException {
+        try {
+            byte type = payload.get();
+            switch (type) {
+                case TASK_SAVED:
+                    taskRepository.restore(readTask(payload));
+                    break;
+                case TASK_DELETED:
+                    taskRepository.restoreDelete(new UUID(payload.getLong(), payload.getLong()));
+                    break;
+                case USER_SAVED:
+                    userRepository.restore(readUser(payload));
+                    break;
+                case USER_DELETED:
+                    userRepository.restoreDelete(readString(payload));
+                    break;
+                default:
+                    throw new IOException("Unknown log record type " + type);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated log record", e);
+        }
+    }
+
+    static void writeTask(DataOutputStream output, TaskEntity task) throws IOException {
+        output.writeLong(task.getId().getMostSignificantBits());
+        output.writeLong(task.getId().getLeastSignificantBits());
+        writeString(output, task.getOwner());
+        writeString(output, task.getDescription());
+        writeString(output, task.getDue());
+    }
+
+    static TaskEntity readTask(ByteBuffer input) {
+        UUID id = new UUID(input.getLong(), input.getLong());
+        String owner = readString(input);
+        TaskEntity task = new TaskEntity(readString(input), readString(input));
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    static void writeUser(DataOutputStream output, UserEntity user) throws IOException {
+        writeString(output, user.getUsername());
+        writeString(output, user.getPasswordHash());
+    }
+
+    static UserEntity readUser(ByteBuffer input) {
+        return new UserEntity(readString(input), null, readString(input));
+    }
+
+    static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    static String readString(ByteBuffer input) {
+        int length = input.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > input.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (input.hasArray()) {
+            String value = new String(input.array(), input.arrayOffset() + input.position(), length,
+                    StandardCharsets.UTF_8);
+            input.position(input.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Byte buffer exposing its backing array, so records are not copied again when written.
+     */
+    static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+    }
+}
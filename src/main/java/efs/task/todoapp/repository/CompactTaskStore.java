@@ -0,0 +1,378 @@
+package efs.task.todoapp.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps tasks in primitive arrays instead of one object graph per task. A task takes a record index in parallel
+ * arrays holding the two longs of its id, its due date as an epoch day, the interned id of its owner and a reference
+ * to its UTF-8 description in a shared byte slab. Records are found through an open-addressing table of record
+ * indexes with linear probing.
+ * <p>
+ * Due dates which do not round-trip through {@link LocalDate#toString()} are kept as strings aside. Owners are never
+ * forgotten, so their number should be bounded by the number of users. Task objects are created on every read.
+ */
+public class CompactTaskStore implements TaskStore {
+    private static final int NO_DUE = Integer.MIN_VALUE;
+    private static final int IRREGULAR_DUE = Integer.MIN_VALUE + 1;
+    private static final long NO_DESCRIPTION = -1;
+    private static final int FREE = -1;
+    private static final int WALK_CHUNK = 1024;
+    private static final int MIN_COMPACTED_SLAB = 1 << 20;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+    private int[] dueDays;
+    private int[] owners;
+    private long[] descriptions;
+    private int records;
+    private int[] freeRecords = new int[16];
+    private int freeCount;
+    private int[] table;
+    private int size;
+    private byte[] slab;
+    private int slabUsed;
+    private int slabGarbage;
+    private final Map<Integer, String> irregularDues = new HashMap<>();
+    private final Map<String, Integer> ownerIds = new HashMap<>();
+    private String[] ownerNames = new String[16];
+
+    public CompactTaskStore() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedTasks number of tasks the store is sized for, it grows beyond it when needed
+     */
+    public CompactTaskStore(int expectedTasks) {
+        int capacity = Math.max(16, expectedTasks);
+        mostSignificantBits = new long[capacity];
+        leastSignificantBits = new long[capacity];
+        dueDays = new int[capacity];
+        owners = new int[capacity];
+        descriptions = new long[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        slab = new byte[capacity * 32];
+    }
+
+    @Override
+    public TaskEntity get(UUID id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            return slot < 0 ? null : task(table[slot] - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(UUID id) {
+        lock.readLock().lock();
+        try {
+            return find(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskEntity put(TaskEntity task) {
+        long msb = task.getId().getMostSignificantBits();
+        long lsb = task.getId().getLeastSignificantBits();
+        byte[] description = task.getDescription() == null
+                ? null
+                : task.getDescription().getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            int slot = find(msb, lsb);
+            TaskEntity previous = null;
+            int record;
+            if (slot >= 0) {
+                record = table[slot] - 1;
+                previous = task(record);
+                release(record);
+            } else {
+                record = allocate();
+                mostSignificantBits[record] = msb;
+                leastSignificantBits[record] = lsb;
+                insert(record);
+            }
+            owners[record] = ownerId(task.getOwner());
+            dueDays[record] = dueDay(record, task.getDue());
+            descriptions[record] = description == null ? NO_DESCRIPTION : append(description);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskEntity remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot < 0) {
+                return null;
+            }
+            int record = table[slot] - 1;
+            TaskEntity previous = task(record);
+            release(record);
+            removeSlot(slot);
+            owners[record] = FREE;
+            if (freeCount == freeRecords.length) {
+                freeRecords = Arrays.copyOf(freeRecords, freeCount * 2);
+            }
+            freeRecords[freeCount++] = record;
+            size--;
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<TaskEntity> action) {
+        List<TaskEntity> chunk = new ArrayList<>(WALK_CHUNK);
+        int next = 0;
+        while (true) {
+            lock.readLock().lock();
+            try {
+                int end = Math.min(records, next + WALK_CHUNK);
+                for (; next < end; next++) {
+                    if (owners[next] != FREE) {
+                        chunk.add(task(next));
+                    }
+                }
+                if (chunk.isEmpty() && next >= records) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            chunk.forEach(action);
+            chunk.clear();
+        }
+    }
+
+    private TaskEntity task(int record) {
+        long reference = descriptions[record];
+        String description = reference == NO_DESCRIPTION
+                ? null
+                : new String(slab, (int) (reference >>> 32), (int) reference, StandardCharsets.UTF_8);
+        int dueDay = dueDays[record];
+        String due = dueDay == NO_DUE ? null
+                : dueDay == IRREGULAR_DUE ? irregularDues.get(record)
+                : LocalDate.ofEpochDay(dueDay).toString();
+        TaskEntity task = new TaskEntity(description, due);
+        task.setId(new UUID(mostSignificantBits[record], leastSignificantBits[record]));
+        task.setOwner(ownerNames[owners[record]]);
+        return task;
+    }
+
+    private int dueDay(int record, String due) {
+        if (due == null) {
+            return NO_DUE;
+        }
+        try {
+            LocalDate date = LocalDate.parse(due);
+            long epochDay = date.toEpochDay();
+            if (epochDay > IRREGULAR_DUE && epochDay <= Integer.MAX_VALUE && date.toString().equals(due)) {
+                return (int) epochDay;
+            }
+        } catch (DateTimeException e) {
+            // kept as a string below
+        }
+        irregularDues.put(record, due);
+        return IRREGULAR_DUE;
+    }
+
+    private int ownerId(String owner) {
+        Integer id = ownerIds.get(owner);
+        if (id == null) {
+            id = ownerIds.size();
+            if (id == ownerNames.length) {
+                ownerNames = Arrays.copyOf(ownerNames, id * 2);
+            }
+            ownerNames[id] = owner;
+            ownerIds.put(owner, id);
+        }
+        return id;
+    }
+
+    /**
+     * Counts the record's description as garbage and drops the reference to it, so a compaction before the record
+     * gets its new description does not copy the released bytes.
+     */
+    private void release(int record) {
+        long reference = descriptions[record];
+        if (reference != NO_DESCRIPTION) {
+            slabGarbage += (int) reference;
+            descriptions[record] = NO_DESCRIPTION;
+        }
+        if (dueDays[record] == IRREGULAR_DUE) {
+            irregularDues.remove(record);
+        }
+    }
+
+    private long append(byte[] description) {
+        if (slab.length - slabUsed < description.length) {
+            if (slabGarbage > slabUsed / 2 && slabUsed >= MIN_COMPACTED_SLAB) {
+                compactSlab();
+            }
+            if (slab.length - slabUsed < description.length) {
+                slab = Arrays.copyOf(slab, grow(slab.length, slabUsed + (long) description.length));
+            }
+        }
+        long reference = (long) slabUsed << 32 | description.length;
+        System.arraycopy(description, 0, slab, slabUsed, description.length);
+        slabUsed += description.length;
+        return reference;
+    }
+
+    private void compactSlab() {
+        byte[] compacted = new byte[slab.length];
+        int used = 0;
+        for (int record = 0; record < records; record++) {
+            long reference = descriptions[record];
+            if (owners[record] != FREE && reference != NO_DESCRIPTION) {
+                int length = (int) reference;
+                System.arraycopy(slab, (int) (reference >>> 32), compacted, used, length);
+                descriptions[record] = (long) used << 32 | length;
+                used += length;
+            }
+        }
+        slab = compacted;
+        slabUsed = used;
+        slabGarbage = 0;
+    }
+
+    /**
+     * @return bytes of the slab taken by descriptions of stored tasks
+     */
+    int liveSlabBytes() {
+        lock.readLock().lock();
+        try {
+            return slabUsed - slabGarbage;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int slabCapacity() {
+        lock.readLock().lock();
+        try {
+            return slab.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeRecords[--freeCount];
+        }
+        if (records == owners.length) {
+            int capacity = grow(owners.length, records + 1L);
+            mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+            leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        return records++;
+    }
+
+    private static int grow(int length, long required) {
+        if (required > MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("Task store is full");
+        }
+        return (int) Math.max(required, Math.min(MAX_ARRAY_SIZE, length * 2L));
+    }
+
+    private int find(long msb, long lsb) {
+        int mask = table.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (mostSignificantBits[entry - 1] == msb && leastSignificantBits[entry - 1] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(int record) {
+        if ((size + 1) * 2L > table.length) {
+            if (table.length == 1 << 30) {
+                throw new IllegalStateException("Task store is full");
+            }
+            int[] oldTable = table;
+            table = new int[oldTable.length * 2];
+            for (int entry : oldTable) {
+                if (entry != 0) {
+                    place(entry - 1);
+                }
+            }
+        }
+        place(record);
+        size++;
+    }
+
+    private void place(int record) {
+        int mask = table.length - 1;
+        int slot = hash(mostSignificantBits[record], leastSignificantBits[record]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = record + 1;
+    }
+
+    /**
+     * Empties the slot and shifts back the entries of the probe sequence behind it, so no tombstones are needed.
+     */
+    private void removeSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (table[next] != 0) {
+            int record = table[next] - 1;
+            int home = hash(mostSignificantBits[record], leastSignificantBits[record]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    static int hash(long msb, long lsb) {
+        long hash = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+}
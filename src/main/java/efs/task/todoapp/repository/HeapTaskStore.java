@@ -0,0 +1,42 @@
+package efs.task.todoapp.repository;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the task objects themselves in a {@link ConcurrentHashMap}.
+ */
+public class HeapTaskStore implements TaskStore {
+    private final ConcurrentHashMap<UUID, TaskEntity> tasksMap = new ConcurrentHashMap<>();
+
+    @Override
+    public TaskEntity get(UUID id) {
+        return tasksMap.get(id);
+    }
+
+    @Override
+    public boolean contains(UUID id) {
+        return tasksMap.containsKey(id);
+    }
+
+    @Override
+    public TaskEntity put(TaskEntity task) {
+        return tasksMap.put(task.getId(), task);
+    }
+
+    @Override
+    public TaskEntity remove(UUID id) {
+        return tasksMap.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return tasksMap.size();
+    }
+
+    @Override
+    public void forEach(Consumer<TaskEntity> action) {
+        tasksMap.values().forEach(action);
+    }
+}
@@ -0,0 +1,467 @@
+package efs.task.todoapp.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps tasks outside of the Java heap, so the number of tasks does not affect garbage collection pauses. Task records
+ * are appended to a memory-mapped file split into fixed-size chunks and found through an open-addressing table in
+ * direct memory, whose slots hold the two longs of the id and the location of the record.
+ * <p>
+ * A replaced or removed record becomes garbage; once garbage takes more than half of the file, live records are
+ * copied to a new file and the mappings of the old one are released. The file is scratch space, durability is
+ * provided by the mutation log. Only the interned owner names are kept on the heap.
+ * <p>
+ * {@link #forEach} walks the records in the order they were appended, rather than the table, whose entries move when
+ * it grows or when entries are removed. Compaction is put off while a walk is in progress, so records keep their
+ * positions and every task unchanged during the walk is visited exactly once.
+ */
+public class MappedTaskStore implements TaskStore, Closeable {
+    private static final int DEFAULT_CHUNK_BYTES = 64 << 20;
+    private static final int SLOT_BYTES = 24;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final int RECORD_HEADER_BYTES = 32;
+    private static final int WALK_CHUNK = 1024;
+    private static final Unmapper UNMAPPER = Unmapper.find();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path file;
+    private final int chunkBytes;
+    private FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final AtomicInteger walks = new AtomicInteger();
+    private long used;
+    private long garbage;
+    private ByteBuffer table;
+    private int slots;
+    private int size;
+    private final Map<String, Integer> ownerIds = new HashMap<>();
+    private String[] ownerNames = new String[16];
+
+    /**
+     * @param file file for the task records, its previous content is discarded
+     */
+    public MappedTaskStore(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_BYTES);
+    }
+
+    MappedTaskStore(Path file, int chunkBytes) throws IOException {
+        this.file = file;
+        this.chunkBytes = chunkBytes;
+        this.channel = openFile(file);
+        this.slots = 1 << 14;
+        this.table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+    }
+
+    @Override
+    public TaskEntity get(UUID id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            return slot < 0 ? null : read(location(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(UUID id) {
+        lock.readLock().lock();
+        try {
+            return find(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskEntity put(TaskEntity task) {
+        long msb = task.getId().getMostSignificantBits();
+        long lsb = task.getId().getLeastSignificantBits();
+        byte[] description = bytes(task.getDescription());
+        byte[] due = bytes(task.getDue());
+        lock.writeLock().lock();
+        try {
+            int slot = find(msb, lsb);
+            TaskEntity previous = slot < 0 ? null : read(location(slot));
+            long location = append(msb, lsb, ownerId(task.getOwner()), due, description);
+            if (slot >= 0) {
+                long oldLocation = location(slot);
+                garbage += chunk(oldLocation).getInt(offset(oldLocation));
+                table.putLong(slot * SLOT_BYTES + 16, location + 1);
+            } else {
+                insert(msb, lsb, location);
+            }
+            return previous;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskEntity remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot < 0) {
+                return null;
+            }
+            long location = location(slot);
+            TaskEntity previous = read(location);
+            garbage += chunk(location).getInt(offset(location));
+            removeSlot(slot);
+            size--;
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<TaskEntity> action) {
+        List<TaskEntity> batch = new ArrayList<>(WALK_CHUNK);
+        long position = 0;
+        lock.readLock().lock();
+        try {
+            walks.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            while (true) {
+                lock.readLock().lock();
+                try {
+                    while (batch.size() < WALK_CHUNK && position < used) {
+                        position = readLive(position, batch);
+                    }
+                    if (batch.isEmpty()) {
+                        return;
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                batch.forEach(action);
+                batch.clear();
+            }
+        } finally {
+            walks.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            unmap(chunks);
+            channel.close();
+            Files.deleteIfExists(file);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the task of the record at the position if the record is its current one.
+     *
+     * @return position of the next record
+     */
+    private long readLive(long position, List<TaskEntity> batch) {
+        int offset = (int) (position % chunkBytes);
+        long chunkEnd = position - offset + chunkBytes;
+        // the unused end of a chunk is left zeroed when a record does not fit into it
+        if (chunkBytes - offset < RECORD_HEADER_BYTES) {
+            return chunkEnd;
+        }
+        ByteBuffer chunk = chunks.get((int) (position / chunkBytes));
+        int length = chunk.getInt(offset);
+        if (length == 0) {
+            return chunkEnd;
+        }
+        long location = (position / chunkBytes) << 32 | offset;
+        int slot = find(chunk.getLong(offset + 4), chunk.getLong(offset + 12));
+        if (slot >= 0 && location(slot) == location) {
+            batch.add(read(location));
+        }
+        return position + length;
+    }
+
+    private TaskEntity read(long location) {
+        ByteBuffer chunk = chunk(location);
+        int offset = offset(location);
+        long msb = chunk.getLong(offset + 4);
+        long lsb = chunk.getLong(offset + 12);
+        String owner = ownerNames[chunk.getInt(offset + 20)];
+        int dueLength = chunk.getInt(offset + 24);
+        String due = string(chunk, offset + RECORD_HEADER_BYTES, dueLength);
+        int descriptionLength = chunk.getInt(offset + 28);
+        String description = string(chunk, offset + RECORD_HEADER_BYTES + Math.max(dueLength, 0),
+                descriptionLength);
+        TaskEntity task = new TaskEntity(description, due);
+        task.setId(new UUID(msb, lsb));
+        task.setOwner(owner);
+        return task;
+    }
+
+    private static String string(ByteBuffer chunk, int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.duplicate().position(offset).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record <code>length, msb, lsb, owner, due length, description length, due, description</code>,
+     * starting a new chunk if it does not fit into the current one.
+     */
+    private long append(long msb, long lsb, int owner, byte[] due, byte[] description) throws IOException {
+        int length = RECORD_HEADER_BYTES + (due == null ? 0 : due.length)
+                + (description == null ? 0 : description.length);
+        if (length > chunkBytes) {
+            throw new IllegalArgumentException("Task of " + length + " bytes is too large");
+        }
+        if (used + length > (long) chunks.size() * chunkBytes && garbage > used / 2 && walks.get() == 0) {
+            compact();
+        }
+        reserve(length);
+        int offset = (int) (used % chunkBytes);
+        long location = (used / chunkBytes) << 32 | offset;
+        ByteBuffer chunk = chunks.get((int) (used / chunkBytes));
+        chunk.putInt(offset, length);
+        chunk.putLong(offset + 4, msb);
+        chunk.putLong(offset + 12, lsb);
+        chunk.putInt(offset + 20, owner);
+        chunk.putInt(offset + 24, due == null ? -1 : due.length);
+        chunk.putInt(offset + 28, description == null ? -1 : description.length);
+        ByteBuffer target = chunk.duplicate().position(offset + RECORD_HEADER_BYTES);
+        if (due != null) {
+            target.put(due);
+        }
+        if (description != null) {
+            target.put(description);
+        }
+        used += length;
+        return location;
+    }
+
+    /**
+     * Moves the end of the file to the next chunk if the record does not fit into the current one and maps the chunk
+     * the record will be written to.
+     */
+    private void reserve(int length) throws IOException {
+        int offset = (int) (used % chunkBytes);
+        if (offset + length > chunkBytes) {
+            garbage += chunkBytes - offset;
+            used += chunkBytes - offset;
+        }
+        if (used == (long) chunks.size() * chunkBytes) {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, used, chunkBytes));
+        }
+    }
+
+    /**
+     * Copies live records to a new file and points the table at their new locations.
+     */
+    private void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+        FileChannel oldChannel = channel;
+        List<MappedByteBuffer> oldChunks = new ArrayList<>(chunks);
+        channel = openFile(compacted);
+        chunks.clear();
+        used = 0;
+        garbage = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long entry = table.getLong(slot * SLOT_BYTES + 16);
+            if (entry != 0) {
+                long location = entry - 1;
+                ByteBuffer chunk = oldChunks.get((int) (location >>> 32));
+                int offset = offset(location);
+                int length = chunk.getInt(offset);
+                reserve(length);
+                ByteBuffer record = chunk.duplicate().position(offset).limit(offset + length);
+                chunks.get((int) (used / chunkBytes)).duplicate().position((int) (used % chunkBytes)).put(record);
+                table.putLong(slot * SLOT_BYTES + 16, ((used / chunkBytes) << 32 | used % chunkBytes) + 1);
+                used += length;
+            }
+        }
+        unmap(oldChunks);
+        oldChannel.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Releases the mappings right away instead of when their buffers are garbage collected, which keeps the space of
+     * replaced files in use. Must be called with the write lock held, as the buffers cannot be read afterwards.
+     */
+    private static void unmap(List<MappedByteBuffer> mappings) {
+        for (MappedByteBuffer mapping : mappings) {
+            UNMAPPER.unmap(mapping);
+        }
+        mappings.clear();
+    }
+
+    private static FileChannel openFile(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private ByteBuffer chunk(long location) {
+        return chunks.get((int) (location >>> 32));
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    private long location(int slot) {
+        return table.getLong(slot * SLOT_BYTES + 16) - 1;
+    }
+
+    private int ownerId(String owner) {
+        Integer id = ownerIds.get(owner);
+        if (id == null) {
+            id = ownerIds.size();
+            if (id == ownerNames.length) {
+                ownerNames = Arrays.copyOf(ownerNames, id * 2);
+            }
+            ownerNames[id] = owner;
+            ownerIds.put(owner, id);
+        }
+        return id;
+    }
+
+    private int find(long msb, long lsb) {
+        int mask = slots - 1;
+        int slot = CompactTaskStore.hash(msb, lsb) & mask;
+        while (true) {
+            int base = slot * SLOT_BYTES;
+            if (table.getLong(base + 16) == 0) {
+                return -1;
+            }
+            if (table.getLong(base) == msb && table.getLong(base + 8) == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(long msb, long lsb, long location) {
+        if ((size + 1) * 2L > slots) {
+            if (slots == MAX_SLOTS) {
+                throw new IllegalStateException("Task store is full");
+            }
+            ByteBuffer oldTable = table;
+            int oldSlots = slots;
+            slots *= 2;
+            table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+            for (int slot = 0; slot < oldSlots; slot++) {
+                int base = slot * SLOT_BYTES;
+                long entry = oldTable.getLong(base + 16);
+                if (entry != 0) {
+                    place(oldTable.getLong(base), oldTable.getLong(base + 8), entry);
+                }
+            }
+        }
+        place(msb, lsb, location + 1);
+        size++;
+    }
+
+    private void place(long msb, long lsb, long entry) {
+        int mask = slots - 1;
+        int slot = CompactTaskStore.hash(msb, lsb) & mask;
+        while (table.getLong(slot * SLOT_BYTES + 16) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot * SLOT_BYTES;
+        table.putLong(base, msb);
+        table.putLong(base + 8, lsb);
+        table.putLong(base + 16, entry);
+    }
+
+    /**
+     * Empties the slot and shifts back the entries of the probe sequence behind it, so no tombstones are needed.
+     */
+    private void removeSlot(int slot) {
+        int mask = slots - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (table.getLong(next * SLOT_BYTES + 16) != 0) {
+            int base = next * SLOT_BYTES;
+            int home = CompactTaskStore.hash(table.getLong(base), table.getLong(base + 8)) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                int holeBase = hole * SLOT_BYTES;
+                table.putLong(holeBase, table.getLong(base));
+                table.putLong(holeBase + 8, table.getLong(base + 8));
+                table.putLong(holeBase + 16, table.getLong(base + 16));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table.putLong(hole * SLOT_BYTES + 16, 0);
+    }
+
+    /**
+     * Releases a mapping through <code>sun.misc.Unsafe.invokeCleaner</code>, found reflectively as it is not part of
+     * the platform API. Where it is missing, mappings are released by the garbage collector.
+     */
+    private interface Unmapper {
+        void unmap(MappedByteBuffer mapping);
+
+        static Unmapper find() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                Object unsafe = field.get(null);
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                return mapping -> {
+                    try {
+                        invokeCleaner.invoke(unsafe, mapping);
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return mapping -> {
+                };
+            }
+        }
+    }
+}
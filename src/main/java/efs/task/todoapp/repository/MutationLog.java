@@ -0,0 +1,58 @@
+package efs.task.todoapp.repository;
+
+import java.util.UUID;
+
+/**
+ * Receives every mutation applied to the repositories, in the order in which mutations of the same entity are
+ * applied. Appending is expected to be cheap since it happens while the entity is locked; waiting for durability is
+ * done separately by {@link #sync(long)}.
+ */
+public interface MutationLog {
+    MutationLog NONE = new MutationLog() {
+        @Override
+        public long taskSaved(TaskEntity task) {
+            return 0;
+        }
+
+        @Override
+        public long taskDeleted(UUID id) {
+            return 0;
+        }
+
+        @Override
+        public long userSaved(UserEntity user) {
+            return 0;
+        }
+
+        @Override
+        public long userDeleted(String username) {
+            return 0;
+        }
+
+        @Override
+        public void sync(long position) {
+        }
+    };
+
+    /**
+     * Appends new state of a created or updated task.
+     *
+     * @param task stored task
+     * @return position in the log to be passed to {@link #sync(long)}
+     */
+    long taskSaved(TaskEntity task);
+
+    long taskDeleted(UUID id);
+
+    long userSaved(UserEntity user);
+
+    long userDeleted(String username);
+
+    /**
+     * Blocks until the log is durable up to the specified position.
+     *
+     * @param position position returned when a mutation was appended
+     * @throws java.io.UncheckedIOException if the log could not be written
+     */
+    void sync(long position);
+}
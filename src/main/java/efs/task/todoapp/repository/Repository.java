@@ -38,6 +38,16 @@ public interface Repository<ID, ENTITY> {
      */
     ENTITY update(ID id, ENTITY entity);
 
+    /**
+     * Atomically replaces entity with specified identifier if it is still the expected one.
+     *
+     * @param id identifier whose associated entity is to be replaced
+     * @param expected entity expected to be currently associated with the identifier
+     * @param entity entity with new data
+     * @return <code>true</code> if the entity has been replaced
+     */
+    boolean replace(ID id, ENTITY expected, ENTITY entity);
+
     /**
      * Deletes entity with specified identifier.
      *
@@ -45,4 +55,13 @@ public interface Repository<ID, ENTITY> {
      * @return <code>true</code> if the repository contained entity with the specified identifier
      */
     boolean delete(ID id);
+
+    /**
+     * Atomically deletes entity with specified identifier if it is still the expected one.
+     *
+     * @param id identifier whose associated entity is to be deleted
+     * @param expected entity expected to be currently associated with the identifier
+     * @return <code>true</code> if the entity has been deleted
+     */
+    boolean delete(ID id, ENTITY expected);
 }
@@ -0,0 +1,28 @@
+package efs.task.todoapp.repository;
+
+import java.util.UUID;
+
+/**
+ * Receives every change of a task together with its sequence number. Changes of the tasks of one owner are received
+ * in sequence order, since the listener is called while the owner's index is locked; for the same reason it must only
+ * hand the change over and never block or call the repository.
+ */
+public interface TaskChangeListener {
+    TaskChangeListener NONE = new TaskChangeListener() {
+        @Override
+        public void taskSaved(String owner, TaskEntity task, boolean created, long sequence) {
+        }
+
+        @Override
+        public void taskDeleted(String owner, UUID id, long sequence) {
+        }
+    };
+
+    /**
+     * @param task task after the change
+     * @param created <code>true</code> if the task was not among the owner's tasks before
+     */
+    void taskSaved(String owner, TaskEntity task, boolean created, long sequence);
+
+    void taskDeleted(String owner, UUID id, long sequence);
+}
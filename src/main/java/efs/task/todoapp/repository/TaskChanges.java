@@ -0,0 +1,40 @@
+package efs.task.todoapp.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Changes of an owner's tasks returned by {@link TaskRepository#changesSince(String, long)}.
+ */
+public class TaskChanges {
+    private final List<TaskEntity> tasks;
+    private final List<UUID> deleted;
+    private final long sequence;
+
+    public TaskChanges(List<TaskEntity> tasks, List<UUID> deleted, long sequence) {
+        this.tasks = tasks;
+        this.deleted = deleted;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return tasks created or updated since the requested sequence number, ordered by their last change
+     */
+    public List<TaskEntity> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @return identifiers of tasks deleted since the requested sequence number
+     */
+    public List<UUID> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return sequence number to request the next changes with
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,24 @@
+package efs.task.todoapp.repository;
+
+import java.util.List;
+
+public class TaskPage {
+    private final List<TaskEntity> tasks;
+    private final String nextCursor;
+
+    public TaskPage(List<TaskEntity> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TaskEntity> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @return cursor of the next page, <code>null</code> if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,52 @@
+package efs.task.todoapp.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Page of an owner's tasks to be returned by {@link TaskRepository#queryByOwner(String, TaskQuery)}. Without due
+ * filters tasks are ordered by id, with a due filter by due date and id; tasks without due date are then skipped.
+ */
+public class TaskQuery {
+    public static final TaskQuery ALL = new TaskQuery(null, Integer.MAX_VALUE, null, null);
+
+    private final String cursor;
+    private final int limit;
+    private final LocalDate dueAfter;
+    private final LocalDate dueBefore;
+
+    /**
+     * @param cursor cursor returned with the previous page, <code>null</code> for the first page
+     * @param limit maximal number of tasks in the page
+     * @param dueAfter only tasks due strictly after this date, <code>null</code> for no lower bound
+     * @param dueBefore only tasks due strictly before this date, <code>null</code> for no upper bound
+     */
+    public TaskQuery(String cursor, int limit, LocalDate dueAfter, LocalDate dueBefore) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.cursor = cursor;
+        this.limit = limit;
+        this.dueAfter = dueAfter;
+        this.dueBefore = dueBefore;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public LocalDate getDueAfter() {
+        return dueAfter;
+    }
+
+    public LocalDate getDueBefore() {
+        return dueBefore;
+    }
+
+    public boolean hasDueFilter() {
+        return dueAfter != null || dueBefore != null;
+    }
+}
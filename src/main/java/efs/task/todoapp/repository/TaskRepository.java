@@ -1,57 +1,714 @@
 package efs.task.todoapp.repository;
 
-import java.util.HashMap;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracing;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
+/**
+ * Tasks indexed by owner. Every change of a task is stamped with the next sequence number of the repository, and
+ * every owner keeps a log of the last change of each of its tasks, deleted ones included as tombstones, so changes
+ * since a sequence number are found without scanning the tasks. Tombstones are compacted after a retention time, or
+ * when there are too many of them; changes since a sequence number older than a compacted tombstone of the same owner,
+ * or handed out before the repository was created, are unknown.
+ * Changes are also passed to a {@link TaskChangeListener} in the order of their sequence numbers.
+ * <p>
+ * A change is appended to the mutation log before it is applied, while its task is locked, and the writer waits for
+ * the log to become durable after the lock is released. If appending fails, for example because the log has failed
+ * before, nothing is changed. If waiting fails, the change has already been applied, seen by readers and passed to the
+ * listener, but may be lost on restart: the exception, answered with 500, means the outcome is unknown.
+ */
+@SuppressWarnings("try")
 public class TaskRepository implements Repository<UUID, TaskEntity> {
+    private static final UUID MAX_UUID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_TOMBSTONES = 1_000_000;
 
-    private final Map<UUID, TaskEntity> tasksMap;
+    private final TaskStore store;
+    private final ConcurrentHashMap<String, OwnerTasks> ownerIndex;
+    private final Object[] locks;
+    private final MutationLog log;
+    /**
+     * Sequence numbers start from the time the repository is created, so numbers handed out before a restart are
+     * lower than all numbers of this run.
+     */
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() << 20);
+    private final long firstSequence = versions.get();
+    /**
+     * Sequence numbers of the last compacted tombstones of owners which have been removed from the index, so their
+     * clients still learn that changes have been lost when the owner is missing or indexed again.
+     */
+    private final ConcurrentHashMap<String, Long> horizons = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Tombstone> tombstones = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tombstoneCount = new AtomicInteger();
+    private volatile TaskChangeListener changeListener = TaskChangeListener.NONE;
+    private ScheduledExecutorService compactor;
 
     public TaskRepository() {
-        tasksMap = new HashMap<>();
+        this(MutationLog.NONE);
+    }
+
+    public TaskRepository(MutationLog log) {
+        this(log, new HeapTaskStore());
+    }
+
+    public TaskRepository(MutationLog log, TaskStore store) {
+        this.store = store;
+        ownerIndex = new ConcurrentHashMap<>();
+        locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.log = log;
     }
 
     @Override
     public UUID save(TaskEntity taskEntity) {
-        TaskEntity result = tasksMap.putIfAbsent(taskEntity.getId(), taskEntity);
-        if (result == null) {
+        try (Span span = Tracing.span("TaskRepository.save")) {
+            long position;
+            synchronized (lockFor(taskEntity.getId())) {
+                if (store.contains(taskEntity.getId())) {
+                    return null;
+                }
+                position = log.taskSaved(taskEntity);
+                store.put(taskEntity);
+                index(taskEntity);
+            }
+            log.sync(position);
             return taskEntity.getId();
-        } else {
-            return null;
         }
     }
 
     @Override
     public TaskEntity query(UUID uuid) {
-        return tasksMap.getOrDefault(uuid, null);
+        try (Span span = Tracing.span("TaskRepository.query")) {
+            return store.get(uuid);
+        }
     }
 
     @Override
     public List<TaskEntity> query(Predicate<TaskEntity> condition) {
-        return tasksMap.values().stream().filter(condition).collect(Collectors.toList());
+        List<TaskEntity> tasks = new ArrayList<>();
+        store.forEach(task -> {
+            if (condition.test(task)) {
+                tasks.add(task);
+            }
+        });
+        return tasks;
+    }
+
+    /**
+     * Returns tasks of the specified owner without scanning tasks of other owners.
+     *
+     * @param owner username of the tasks' owner
+     * @return list of the owner's tasks ordered by id
+     */
+    public List<TaskEntity> queryByOwner(String owner) {
+        return queryByOwner(owner, TaskQuery.ALL).getTasks();
+    }
+
+    /**
+     * Returns a page of tasks of the specified owner. Only the returned tasks are visited, using the id or due date
+     * index of the owner.
+     *
+     * @param owner username of the tasks' owner
+     * @param query page to be returned
+     * @return page of the owner's tasks
+     * @throws IllegalArgumentException if the cursor of the query is malformed
+     */
+    public TaskPage queryByOwner(String owner, TaskQuery query) {
+        try (Span span = Tracing.span("TaskRepository.queryByOwner")) {
+            OwnerTasks ownerTasks = ownerIndex.get(owner);
+            if (ownerTasks == null) {
+                return new TaskPage(Collections.emptyList(), null);
+            }
+            return query.hasDueFilter() ? pageByDue(ownerTasks, query) : pageById(ownerTasks, query);
+        }
+    }
+
+    /**
+     * Returns a lazy view of the owner's tasks ordered by id. Tasks are read from the store one by one while the view
+     * is iterated, so no list of them is built; tasks changed during the iteration may or may not be visited.
+     *
+     * @param owner username of the tasks' owner
+     * @return tasks of the owner
+     */
+    public Iterable<TaskEntity> iterateByOwner(String owner) {
+        return () -> {
+            OwnerTasks ownerTasks = ownerIndex.get(owner);
+            Iterator<UUID> ids = ownerTasks == null
+                    ? Collections.emptyIterator()
+                    : ownerTasks.ids.keySet().iterator();
+            return new Iterator<>() {
+                private TaskEntity next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && ids.hasNext()) {
+                        TaskEntity task = store.get(ids.next());
+                        if (task != null && owner.equals(task.getOwner())) {
+                            next = task;
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public TaskEntity next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    TaskEntity task = next;
+                    next = null;
+                    return task;
+                }
+            };
+        };
+    }
+
+    /**
+     * @return number of the owner's tasks, read from the owner index
+     */
+    public int ownerTaskCount(String owner) {
+        OwnerTasks ownerTasks = ownerIndex.get(owner);
+        return ownerTasks == null ? 0 : ownerTasks.count;
     }
 
     @Override
     public TaskEntity update(UUID uuid, TaskEntity taskEntity) {
-        if (tasksMap.containsKey(uuid)) {
-            tasksMap.put(uuid, taskEntity);
+        try (Span span = Tracing.span("TaskRepository.update")) {
+            long position;
+            synchronized (lockFor(uuid)) {
+                if (!store.contains(uuid)) {
+                    return null;
+                }
+                position = log.taskSaved(taskEntity);
+                reindex(store.put(taskEntity), taskEntity);
+            }
+            log.sync(position);
             return taskEntity;
-        } else {
-            return null;
+        }
+    }
+
+    @Override
+    public boolean replace(UUID uuid, TaskEntity expected, TaskEntity taskEntity) {
+        try (Span span = Tracing.span("TaskRepository.replace")) {
+            long position;
+            synchronized (lockFor(uuid)) {
+                TaskEntity oldTask = store.get(uuid);
+                if (!sameTask(oldTask, expected)) {
+                    return false;
+                }
+                position = log.taskSaved(taskEntity);
+                store.put(taskEntity);
+                reindex(oldTask, taskEntity);
+            }
+            log.sync(position);
+            return true;
         }
     }
 
     @Override
     public boolean delete(UUID uuid) {
-        if (tasksMap.containsKey(uuid)) {
-            tasksMap.remove(uuid);
+        try (Span span = Tracing.span("TaskRepository.delete")) {
+            long position;
+            synchronized (lockFor(uuid)) {
+                if (!store.contains(uuid)) {
+                    return false;
+                }
+                position = log.taskDeleted(uuid);
+                unindex(store.remove(uuid));
+            }
+            log.sync(position);
+            compactTombstonesAboveLimit();
+            return true;
+        }
+    }
+
+    @Override
+    public boolean delete(UUID uuid, TaskEntity expected) {
+        try (Span span = Tracing.span("TaskRepository.delete")) {
+            long position;
+            synchronized (lockFor(uuid)) {
+                TaskEntity oldTask = store.get(uuid);
+                if (!sameTask(oldTask, expected)) {
+                    return false;
+                }
+                position = log.taskDeleted(uuid);
+                store.remove(uuid);
+                unindex(oldTask);
+            }
+            log.sync(position);
+            compactTombstonesAboveLimit();
             return true;
+        }
+    }
+
+    /**
+     * Stores the task without logging it, used to rebuild the repository from persisted data.
+     *
+     * @param taskEntity task to be stored, replacing a task with the same identifier
+     */
+    public void restore(TaskEntity taskEntity) {
+        synchronized (lockFor(taskEntity.getId())) {
+            TaskEntity oldTask = store.put(taskEntity);
+            if (oldTask == null) {
+                index(taskEntity);
+            } else {
+                reindex(oldTask, taskEntity);
+            }
+        }
+    }
+
+    /**
+     * Deletes the task without logging it, used to rebuild the repository from persisted data.
+     *
+     * @param uuid identifier of the task to be deleted
+     */
+    public void restoreDelete(UUID uuid) {
+        synchronized (lockFor(uuid)) {
+            TaskEntity oldTask = store.remove(uuid);
+            if (oldTask != null) {
+                unindex(oldTask);
+            }
+        }
+        compactTombstonesAboveLimit();
+    }
+
+    /**
+     * Sets the listener receiving the changes of tasks, restored ones included, in place of the previous one.
+     */
+    public void setChangeListener(TaskChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Visits every stored task without blocking writers. Tasks changed during the walk may or may not be visited.
+     *
+     * @param action action applied to every visited task
+     */
+    public void forEach(Consumer<TaskEntity> action) {
+        store.forEach(action);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Returns the version of the owner's tasks, the sequence number of their last change. Versions are unique within
+     * the repository, except that every owner without tasks or tombstones has version <code>0</code>. The version is
+     * updated after the tasks, so tasks read after the version are at least as new as the version.
+     *
+     * @param owner username of the tasks' owner
+     * @return version of the owner's tasks
+     */
+    public long ownerVersion(String owner) {
+        OwnerTasks ownerTasks = ownerIndex.get(owner);
+        return ownerTasks == null ? 0 : ownerTasks.version;
+    }
+
+    /**
+     * Returns the sequence number after which changes of tasks read after this call are to be requested with
+     * {@link #changesSince(String, long)}.
+     *
+     * @param owner username of the tasks' owner
+     * @return sequence number of the owner's tasks
+     */
+    public long syncSequence(String owner) {
+        OwnerTasks ownerTasks = ownerIndex.get(owner);
+        return ownerTasks == null ? horizonOf(owner) : ownerTasks.version;
+    }
+
+    /**
+     * Returns the tasks of the owner changed after the sequence number and the identifiers of the deleted ones, read
+     * from the owner's change log. A task changed several times is returned once.
+     *
+     * @param owner username of the tasks' owner
+     * @param since sequence number returned by {@link #syncSequence(String)} or with earlier changes
+     * @return changes or <code>null</code> if they are unknown, because tombstones after the sequence number have
+     * been compacted or the number has not been handed out by this repository
+     */
+    public TaskChanges changesSince(String owner, long since) {
+        try (Span span = Tracing.span("TaskRepository.changesSince")) {
+            if (since > versions.get()) {
+                return null;
+            }
+            OwnerTasks ownerTasks = ownerIndex.get(owner);
+            if (ownerTasks == null) {
+                return since < horizonOf(owner)
+                        ? null
+                        : new TaskChanges(Collections.emptyList(), Collections.emptyList(), since);
+            }
+            long version = ownerTasks.version;
+            List<TaskEntity> tasks = new ArrayList<>();
+            List<UUID> deleted = new ArrayList<>();
+            if (since < version) {
+                for (Map.Entry<Long, UUID> change : ownerTasks.changes.subMap(since, false, version, true).entrySet()) {
+                    long sequence = change.getKey();
+                    UUID id = change.getValue();
+                    Long live = ownerTasks.ids.get(id);
+                    if (live != null && live == sequence) {
+                        TaskEntity task = store.get(id);
+                        if (task != null && owner.equals(task.getOwner())) {
+                            tasks.add(task);
+                        }
+                    } else {
+                        Long tombstone = ownerTasks.tombstones.get(id);
+                        if (tombstone != null && tombstone == sequence) {
+                            deleted.add(id);
+                        }
+                    }
+                }
+            }
+            // checked after reading, as tombstones may have been compacted meanwhile
+            if (since < ownerTasks.horizon) {
+                return null;
+            }
+            return new TaskChanges(tasks, deleted, Math.max(since, version));
+        }
+    }
+
+    /**
+     * Forgets tombstones of tasks deleted longer than the retention time ago, and the oldest tombstones while there
+     * are too many of them.
+     *
+     * @return number of forgotten tombstones
+     */
+    public int compactTombstones(long retention, TimeUnit unit) {
+        return compactTombstones(System.nanoTime() - unit.toNanos(retention));
+    }
+
+    /**
+     * Compacts tombstones in the background with the given retention time.
+     */
+    public synchronized void scheduleTombstoneCompaction(long retention, TimeUnit unit) {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "todo-tombstones");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, Math.min(unit.toSeconds(retention), 60));
+            compactor.scheduleWithFixedDelay(() -> compactTombstones(retention, unit), interval, interval,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized void stopTombstoneCompaction() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            compactor = null;
+        }
+    }
+
+    /**
+     * Checks in the owner index, without reading the task, whether the task belongs to the owner.
+     */
+    public boolean isOwnedBy(UUID uuid, String owner) {
+        OwnerTasks ownerTasks = ownerIndex.get(owner);
+        return ownerTasks != null && ownerTasks.ids.containsKey(uuid);
+    }
+
+    /**
+     * Visits the number of tasks of every owner having at least one task, without visiting the tasks.
+     *
+     * @param action action applied to the task count of every owner
+     */
+    public void forEachOwnerTaskCount(IntConsumer action) {
+        for (OwnerTasks ownerTasks : ownerIndex.values()) {
+            int count = ownerTasks.count;
+            if (count > 0) {
+                action.accept(count);
+            }
+        }
+    }
+
+    private TaskPage pageById(OwnerTasks ownerTasks, TaskQuery query) {
+        NavigableSet<UUID> ids = query.getCursor() == null
+                ? ownerTasks.ids.navigableKeySet()
+                : ownerTasks.ids.navigableKeySet().tailSet(UUID.fromString(query.getCursor()), false);
+        List<TaskEntity> tasks = new ArrayList<>(Math.min(query.getLimit(), ownerTasks.ids.size()));
+        Iterator<UUID> iterator = ids.iterator();
+        UUID last = null;
+        while (iterator.hasNext() && tasks.size() < query.getLimit()) {
+            TaskEntity task = store.get(last = iterator.next());
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return new TaskPage(tasks, iterator.hasNext() ? last.toString() : null);
+    }
+
+    private TaskPage pageByDue(OwnerTasks ownerTasks, TaskQuery query) {
+        DueKey from = query.getDueAfter() == null ? null : new DueKey(query.getDueAfter().toEpochDay(), MAX_UUID);
+        if (query.getCursor() != null) {
+            DueKey cursor = DueKey.parse(query.getCursor());
+            from = from == null || cursor.compareTo(from) > 0 ? cursor : from;
+        }
+        long toEpochDay = query.getDueBefore() == null ? Long.MAX_VALUE : query.getDueBefore().toEpochDay();
+        NavigableSet<DueKey> keys = from == null ? ownerTasks.byDue : ownerTasks.byDue.tailSet(from, false);
+        List<TaskEntity> tasks = new ArrayList<>(Math.min(query.getLimit(), 64));
+        Iterator<DueKey> iterator = keys.iterator();
+        DueKey last = null;
+        while (iterator.hasNext()) {
+            DueKey key = iterator.next();
+            if (key.epochDay >= toEpochDay) {
+                return new TaskPage(tasks, null);
+            }
+            if (tasks.size() == query.getLimit()) {
+                return new TaskPage(tasks, last.toString());
+            }
+            TaskEntity task = store.get(key.id);
+            if (task != null) {
+                tasks.add(task);
+                last = key;
+            }
+        }
+        return new TaskPage(tasks, null);
+    }
+
+    private void index(TaskEntity taskEntity) {
+        ownerIndex.compute(taskEntity.getOwner(), (owner, ownerTasks) -> {
+            OwnerTasks tasks = ownerTasks == null ? new OwnerTasks(horizonOf(owner)) : ownerTasks;
+            long sequence = versions.incrementAndGet();
+            boolean created = tasks.add(taskEntity, sequence);
+            tasks.version = sequence;
+            changeListener.taskSaved(owner, taskEntity, created, sequence);
+            return tasks;
+        });
+    }
+
+    private void unindex(TaskEntity taskEntity) {
+        ownerIndex.computeIfPresent(taskEntity.getOwner(), (owner, ownerTasks) -> {
+            long sequence = versions.incrementAndGet();
+            ownerTasks.delete(taskEntity, sequence);
+            ownerTasks.version = sequence;
+            tombstones.add(new Tombstone(owner, taskEntity.getId(), sequence, System.nanoTime()));
+            tombstoneCount.incrementAndGet();
+            changeListener.taskDeleted(owner, taskEntity.getId(), sequence);
+            return ownerTasks;
+        });
+    }
+
+    private void reindex(TaskEntity oldTask, TaskEntity newTask) {
+        if (!oldTask.getOwner().equals(newTask.getOwner())) {
+            unindex(oldTask);
+            index(newTask);
         } else {
-            return false;
+            ownerIndex.computeIfPresent(oldTask.getOwner(), (owner, ownerTasks) -> {
+                long sequence = versions.incrementAndGet();
+                ownerTasks.removeDue(oldTask);
+                boolean created = ownerTasks.add(newTask, sequence);
+                ownerTasks.version = sequence;
+                changeListener.taskSaved(owner, newTask, created, sequence);
+                return ownerTasks;
+            });
+        }
+    }
+
+    private void compactTombstonesAboveLimit() {
+        if (tombstoneCount.get() > MAX_TOMBSTONES) {
+            compactTombstones(System.nanoTime() - Long.MAX_VALUE / 2);
+        }
+    }
+
+    private int compactTombstones(long deletedBefore) {
+        int compacted = 0;
+        synchronized (tombstones) {
+            Tombstone tombstone;
+            while ((tombstone = tombstones.peek()) != null
+                    && (tombstone.deletedAt - deletedBefore < 0 || tombstoneCount.get() > MAX_TOMBSTONES)) {
+                tombstones.poll();
+                tombstoneCount.decrementAndGet();
+                forget(tombstone);
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Removes the tombstone and raises the horizon of its owner. An owner left without tasks and tombstones is
+     * removed from the index, keeping only its horizon, which is recorded before the owner is removed, so an owner
+     * missing in the index is never taken for an owner without compacted tombstones.
+     */
+    private void forget(Tombstone tombstone) {
+        ownerIndex.computeIfPresent(tombstone.owner, (owner, ownerTasks) -> {
+            if (ownerTasks.tombstones.remove(tombstone.id, tombstone.sequence)) {
+                ownerTasks.changes.remove(tombstone.sequence);
+                ownerTasks.horizon = Math.max(ownerTasks.horizon, tombstone.sequence);
+            }
+            if (ownerTasks.ids.isEmpty() && ownerTasks.tombstones.isEmpty()) {
+                horizons.merge(owner, ownerTasks.horizon, Math::max);
+                return null;
+            }
+            return ownerTasks;
+        });
+    }
+
+    /**
+     * @return horizon of an owner missing in the index, at least the first sequence number of this repository
+     */
+    private long horizonOf(String owner) {
+        return horizons.getOrDefault(owner, firstSequence);
+    }
+
+    /**
+     * Compares tasks by value, since stores are not required to return the same task object twice.
+     */
+    private static boolean sameTask(TaskEntity task, TaskEntity expected) {
+        return task == expected || task != null && expected != null
+                && task.getId().equals(expected.getId())
+                && Objects.equals(task.getOwner(), expected.getOwner())
+                && Objects.equals(task.getDescription(), expected.getDescription())
+                && Objects.equals(task.getDue(), expected.getDue());
+    }
+
+    private Object lockFor(UUID uuid) {
+        return locks[uuid.hashCode() & (LOCK_STRIPES - 1)];
+    }
+
+    static Long epochDay(String due) {
+        return due == null ? null : LocalDate.from(DateTimeFormatter.ISO_DATE.parse(due)).toEpochDay();
+    }
+
+    /**
+     * Indexes of the tasks of one owner, modified only inside <code>ownerIndex</code> compute functions.
+     * <code>ids</code> maps tasks to the sequence number of their last change and <code>tombstones</code> deleted
+     * tasks to the sequence number of their deletion, <code>changes</code> maps these sequence numbers back to the
+     * tasks.
+     */
+    private static final class OwnerTasks {
+        private final ConcurrentSkipListMap<UUID, Long> ids = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListSet<DueKey> byDue = new ConcurrentSkipListSet<>();
+        private final ConcurrentSkipListMap<Long, UUID> changes = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<UUID, Long> tombstones = new ConcurrentHashMap<>();
+        private volatile int count;
+        private volatile long version;
+        /**
+         * Sequence number of the last compacted tombstone, changes since an earlier number are unknown.
+         */
+        private volatile long horizon;
+
+        private OwnerTasks(long horizon) {
+            this.horizon = horizon;
+        }
+
+        /**
+         * @return <code>true</code> if the task has not been indexed before
+         */
+        private boolean add(TaskEntity task, long sequence) {
+            Long previous = ids.put(task.getId(), sequence);
+            if (previous == null) {
+                count++;
+            } else {
+                changes.remove(previous);
+            }
+            Long tombstone = tombstones.remove(task.getId());
+            if (tombstone != null) {
+                changes.remove(tombstone);
+            }
+            changes.put(sequence, task.getId());
+            Long epochDay = epochDay(task.getDue());
+            if (epochDay != null) {
+                byDue.add(new DueKey(epochDay, task.getId()));
+            }
+            return previous == null;
+        }
+
+        private void delete(TaskEntity task, long sequence) {
+            Long previous = ids.remove(task.getId());
+            if (previous != null) {
+                count--;
+                changes.remove(previous);
+            }
+            tombstones.put(task.getId(), sequence);
+            changes.put(sequence, task.getId());
+            removeDue(task);
+        }
+
+        private void removeDue(TaskEntity task) {
+            Long epochDay = epochDay(task.getDue());
+            if (epochDay != null) {
+                byDue.remove(new DueKey(epochDay, task.getId()));
+            }
+        }
+    }
+
+    private static final class Tombstone {
+        private final String owner;
+        private final UUID id;
+        private final long sequence;
+        private final long deletedAt;
+
+        private Tombstone(String owner, UUID id, long sequence, long deletedAt) {
+            this.owner = owner;
+            this.id = id;
+            this.sequence = sequence;
+            this.deletedAt = deletedAt;
+        }
+    }
+
+    private static final class DueKey implements Comparable<DueKey> {
+        private final long epochDay;
+        private final UUID id;
+
+        private DueKey(long epochDay, UUID id) {
+            this.epochDay = epochDay;
+            this.id = id;
+        }
+
+        private static DueKey parse(String cursor) {
+            int separator = cursor.indexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed cursor " + cursor);
+            }
+            return new DueKey(Long.parseLong(cursor.substring(0, separator)),
+                    UUID.fromString(cursor.substring(separator + 1)));
+        }
+
+        @Override
+        public int compareTo(DueKey other) {
+            int result = Long.compare(epochDay, other.epochDay);
+            return result != 0 ? result : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof DueKey && compareTo((DueKey) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(epochDay) * 31 + id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return epochDay + "_" + id;
         }
     }
 }
@@ -0,0 +1,47 @@
+package efs.task.todoapp.repository;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Primary storage of tasks used by {@link TaskRepository}. The repository serializes mutations of the same task, so a
+ * store only needs to keep concurrent operations on different tasks and concurrent reads safe. Stores may return a
+ * new copy of the task on every read.
+ */
+public interface TaskStore {
+
+    /**
+     * @return stored task with the specified identifier or <code>null</code>
+     */
+    TaskEntity get(UUID id);
+
+    /**
+     * @return <code>true</code> if a task with the specified identifier is stored
+     */
+    boolean contains(UUID id);
+
+    /**
+     * Stores the task, replacing a task with the same identifier.
+     *
+     * @return replaced task or <code>null</code>
+     */
+    TaskEntity put(TaskEntity task);
+
+    /**
+     * Removes the task with the specified identifier.
+     *
+     * @return removed task or <code>null</code>
+     */
+    TaskEntity remove(UUID id);
+
+    /**
+     * @return number of stored tasks
+     */
+    int size();
+
+    /**
+     * Visits every stored task without blocking writers for the whole walk. Tasks changed during the walk may or may
+     * not be visited.
+     */
+    void forEach(Consumer<TaskEntity> action);
+}
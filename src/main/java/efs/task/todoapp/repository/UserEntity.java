@@ -4,10 +4,16 @@ public class UserEntity {
 
     private final String username;
     private final String password;
+    private final transient String passwordHash;
 
     public UserEntity(String username, String password) {
+        this(username, password, null);
+    }
+
+    public UserEntity(String username, String password, String passwordHash) {
         this.username = username;
         this.password = password;
+        this.passwordHash = passwordHash;
     }
 
     public String getUsername() {
@@ -18,4 +24,11 @@ public class UserEntity {
         return this.password;
     }
 
+    /**
+     * @return salted hash of the password of a stored user, <code>null</code> for user data from a request
+     */
+    public String getPasswordHash() {
+        return this.passwordHash;
+    }
+
 }
@@ -1,32 +1,61 @@
 package efs.task.todoapp.repository;
 
-import java.util.HashMap;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracing;
+
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * Users by username. Like in {@link TaskRepository}, a change is appended to the mutation log before it is applied and
+ * a failure while waiting for the log to become durable leaves the outcome of the change unknown.
+ */
+@SuppressWarnings("try")
 public class UserRepository implements Repository<String, UserEntity> {
+    private static final int LOCK_STRIPES = 16;
 
     private final Map<String, UserEntity> usersMap;
+    private final Object[] locks;
+    private final MutationLog log;
 
     public UserRepository() {
-        usersMap = new HashMap<>();
+        this(MutationLog.NONE);
+    }
+
+    public UserRepository(MutationLog log) {
+        usersMap = new ConcurrentHashMap<>();
+        locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.log = log;
     }
 
     @Override
     public String save(UserEntity userEntity) {
-        UserEntity result = usersMap.putIfAbsent(userEntity.getUsername(), userEntity);
-        if (result == null) {
+        try (Span span = Tracing.span("UserRepository.save")) {
+            long position;
+            synchronized (lockFor(userEntity.getUsername())) {
+                if (usersMap.containsKey(userEntity.getUsername())) {
+                    return null;
+                }
+                position = log.userSaved(userEntity);
+                usersMap.put(userEntity.getUsername(), userEntity);
+            }
+            log.sync(position);
             return userEntity.getUsername();
-        } else {
-            return null;
         }
     }
 
     @Override
     public UserEntity query(String s) {
-        return usersMap.getOrDefault(s, null);
+        try (Span span = Tracing.span("UserRepository.query")) {
+            return usersMap.get(s);
+        }
     }
 
     @Override
@@ -34,25 +63,102 @@ public class UserRepository implements Repository<String, UserEntity> {
         return usersMap.values().stream().filter(condition).collect(Collectors.toList());
     }
 
+    public int size() {
+        return usersMap.size();
+    }
+
     @Override
     public UserEntity update(String s, UserEntity userEntity) {
-        if (usersMap.containsKey(s)) {
-            usersMap.put(s, userEntity);
+        try (Span span = Tracing.span("UserRepository.update")) {
+            long position;
+            synchronized (lockFor(s)) {
+                if (!usersMap.containsKey(s)) {
+                    return null;
+                }
+                position = log.userSaved(userEntity);
+                usersMap.put(s, userEntity);
+            }
+            log.sync(position);
             return userEntity;
-        } else {
-            return null;
+        }
+    }
+
+    @Override
+    public boolean replace(String s, UserEntity expected, UserEntity userEntity) {
+        try (Span span = Tracing.span("UserRepository.replace")) {
+            long position;
+            synchronized (lockFor(s)) {
+                if (!expected.equals(usersMap.get(s))) {
+                    return false;
+                }
+                position = log.userSaved(userEntity);
+                usersMap.put(s, userEntity);
+            }
+            log.sync(position);
+            return true;
         }
     }
 
     @Override
     public boolean delete(String s) {
-        if (usersMap.containsKey(s)) {
-            usersMap.remove(s);
+        try (Span span = Tracing.span("UserRepository.delete")) {
+            long position;
+            synchronized (lockFor(s)) {
+                if (!usersMap.containsKey(s)) {
+                    return false;
+                }
+                position = log.userDeleted(s);
+                usersMap.remove(s);
+            }
+            log.sync(position);
             return true;
-        } else {
-            return false;
         }
     }
 
+    @Override
+    public boolean delete(String s, UserEntity expected) {
+        try (Span span = Tracing.span("UserRepository.delete")) {
+            long position;
+            synchronized (lockFor(s)) {
+                if (!expected.equals(usersMap.get(s))) {
+                    return false;
+                }
+                position = log.userDeleted(s);
+                usersMap.remove(s);
+            }
+            log.sync(position);
+            return true;
+        }
+    }
+
+    /**
+     * Stores the user without logging it, used to rebuild the repository from persisted data.
+     *
+     * @param userEntity user to be stored, replacing a user with the same username
+     */
+    public void restore(UserEntity userEntity) {
+        usersMap.put(userEntity.getUsername(), userEntity);
+    }
 
+    /**
+     * Deletes the user without logging it, used to rebuild the repository from persisted data.
+     *
+     * @param s username of the user to be deleted
+     */
+    public void restoreDelete(String s) {
+        usersMap.remove(s);
+    }
+
+    /**
+     * Visits every stored user without blocking writers. Users changed during the walk may or may not be visited.
+     *
+     * @param action action applied to every visited user
+     */
+    public void forEach(Consumer<UserEntity> action) {
+        usersMap.values().forEach(action);
+    }
+
+    private Object lockFor(String username) {
+        return locks[username.hashCode() & (LOCK_STRIPES - 1)];
+    }
 }
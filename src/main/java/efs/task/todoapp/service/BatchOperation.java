@@ -0,0 +1,40 @@
+package efs.task.todoapp.service;
+
+import com.google.gson.annotations.SerializedName;
+import efs.task.todoapp.repository.TaskEntity;
+
+/**
+ * Single operation of a task batch: creating a task, or updating or deleting the task with the given id.
+ */
+public class BatchOperation {
+    public enum Type {
+        @SerializedName("create")
+        CREATE,
+        @SerializedName("update")
+        UPDATE,
+        @SerializedName("delete")
+        DELETE
+    }
+
+    private final Type type;
+    private final String id;
+    private final TaskEntity task;
+
+    public BatchOperation(Type type, String id, TaskEntity task) {
+        this.type = type;
+        this.id = id;
+        this.task = task;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public TaskEntity getTask() {
+        return task;
+    }
+}
@@ -0,0 +1,44 @@
+package efs.task.todoapp.service;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a single operation of a task batch.
+ */
+public class BatchResult {
+    public enum Outcome {
+        CREATED,
+        UPDATED,
+        DELETED,
+        INVALID,
+        NOT_FOUND,
+        FORBIDDEN,
+        NOT_APPLIED
+    }
+
+    static final BatchResult INVALID = new BatchResult(Outcome.INVALID, null);
+    static final BatchResult NOT_APPLIED = new BatchResult(Outcome.NOT_APPLIED, null);
+
+    private final Outcome outcome;
+    private final UUID id;
+
+    public BatchResult(Outcome outcome, UUID id) {
+        this.outcome = outcome;
+        this.id = id;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return id of the created, updated or deleted task, <code>null</code> if unknown
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    public boolean isApplied() {
+        return outcome == Outcome.CREATED || outcome == Outcome.UPDATED || outcome == Outcome.DELETED;
+    }
+}
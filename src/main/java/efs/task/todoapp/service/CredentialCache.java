@@ -0,0 +1,85 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.UserEntity;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified <code>auth</code> header values. An entry maps the raw header value to the user it has
+ * been verified against and expires after a fixed time. Callers must check that the cached user is still the one
+ * stored in the repository, so a changed or deleted user is never authenticated from the cache.
+ */
+public class CredentialCache {
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    public CredentialCache(int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns user verified against the header value.
+     *
+     * @param auth raw value of the <code>auth</code> header
+     * @return user or <code>null</code> if the value is not cached or has expired
+     */
+    public UserEntity get(String auth) {
+        Entry entry = entries.get(auth);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(auth, entry);
+            return null;
+        }
+        return entry.user;
+    }
+
+    public void put(String auth, UserEntity user) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(auth, new Entry(user, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Removes all header values verified against the user with specified username.
+     *
+     * @param username username of the changed user
+     */
+    public void invalidate(String username) {
+        entries.values().removeIf(entry -> entry.user.getUsername().equals(username));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() >= maxSize - maxSize / 4 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final UserEntity user;
+        private final long expiresAt;
+
+        private Entry(UserEntity user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package efs.task.todoapp.service;
+
+import java.util.UUID;
+
+/**
+ * Source of identifiers of new tasks.
+ */
+public interface IdGenerator {
+
+    /**
+     * Returns an identifier which has not been returned before by this generator. Identifiers are RFC 4122 version 4
+     * UUIDs, so they are accepted as task ids in request paths.
+     *
+     * @return new identifier
+     */
+    UUID nextId();
+}
@@ -0,0 +1,129 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.service.exceptions.ServiceUnavailableException;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Salted PBKDF2 password hashing. Hashes are computed on the calling thread, but at most <code>threads</code> at a
+ * time, so a burst of logins cannot take every CPU. Callers over that limit wait, at most <code>queueDepth</code> of
+ * them and for a bounded time; a caller which cannot wait is refused with {@link ServiceUnavailableException}.
+ * <p>
+ * Encoded hashes have the form <code>pbkdf2-sha256$iterations$salt$hash</code>, so the iteration count can be raised
+ * without invalidating stored passwords.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int queueDepth;
+    private final int iterations;
+    private final String dummyHash;
+
+    public PasswordHasher(int iterations, int threads, int queueDepth) {
+        this.iterations = iterations;
+        this.permits = new Semaphore(threads, true);
+        this.queueDepth = queueDepth;
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = new byte[HASH_BITS / 8];
+        random.nextBytes(hash);
+        this.dummyHash = encode(iterations, salt, hash);
+    }
+
+    /**
+     * Creates hasher configured with <code>todo.password.*</code> system properties.
+     */
+    public static PasswordHasher fromSystemProperties() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new PasswordHasher(Integer.getInteger("todo.password.iterations", 210_000),
+                Integer.getInteger("todo.password.threads", cores),
+                Integer.getInteger("todo.password.queue", 256));
+    }
+
+    public String hash(String password) throws ServiceUnavailableException {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return encode(iterations, salt, run(password, salt, iterations));
+    }
+
+    public boolean verify(String password, String encodedHash) throws ServiceUnavailableException {
+        String[] parts = encodedHash.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            return false;
+        }
+        int hashIterations = Integer.parseInt(parts[1]);
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] salt = decoder.decode(parts[2]);
+        byte[] expected = decoder.decode(parts[3]);
+        byte[] actual = run(password, salt, hashIterations);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Verifies the password against a random hash which no password matches, for a user who does not exist. It takes
+     * as long as verifying the password of an existing user, so response time does not reveal which users exist.
+     */
+    public void verifyMissing(String password) throws ServiceUnavailableException {
+        verify(password, dummyHash);
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    private byte[] run(String password, byte[] salt, int iterations) throws ServiceUnavailableException {
+        acquire();
+        try {
+            return pbkdf2(password, salt, iterations);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() throws ServiceUnavailableException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > queueDepth) {
+            waiting.decrementAndGet();
+            throw new ServiceUnavailableException("Too many password verifications in progress");
+        }
+        try {
+            if (!permits.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new ServiceUnavailableException("Password verification timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password verification interrupted");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
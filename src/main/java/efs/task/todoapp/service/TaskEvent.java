@@ -0,0 +1,49 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.TaskEntity;
+
+import java.util.UUID;
+
+/**
+ * Change of a task published by {@link ToDoService} to the subscribers of the task owner.
+ */
+public class TaskEvent {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final UUID id;
+    private final TaskEntity task;
+    private final long sequence;
+
+    /**
+     * @param task task after the change, <code>null</code> for a deleted task
+     * @param sequence sequence number of the change in the task repository
+     */
+    public TaskEvent(Type type, UUID id, TaskEntity task, long sequence) {
+        this.type = type;
+        this.id = id;
+        this.task = task;
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public TaskEntity getTask() {
+        return task;
+    }
+
+    /**
+     * @return sequence number of the change, events of one owner are published in the order of these numbers
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
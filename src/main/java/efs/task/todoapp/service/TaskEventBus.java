@@ -0,0 +1,52 @@
+package efs.task.todoapp.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out of task events to the listeners of their owner. Listeners are called on the thread changing the task, so
+ * they must only hand the event over and never block. Publishing to an owner without listeners is a single map
+ * lookup.
+ */
+public class TaskEventBus {
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<Consumer<TaskEvent>>> listeners =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public void subscribe(String owner, Consumer<TaskEvent> listener) {
+        listeners.compute(owner, (key, ownerListeners) -> {
+            CopyOnWriteArrayList<Consumer<TaskEvent>> result =
+                    ownerListeners == null ? new CopyOnWriteArrayList<>() : ownerListeners;
+            result.add(listener);
+            return result;
+        });
+        size.incrementAndGet();
+    }
+
+    public void unsubscribe(String owner, Consumer<TaskEvent> listener) {
+        listeners.computeIfPresent(owner, (key, ownerListeners) -> {
+            if (ownerListeners.remove(listener)) {
+                size.decrementAndGet();
+            }
+            return ownerListeners.isEmpty() ? null : ownerListeners;
+        });
+    }
+
+    public void publish(String owner, TaskEvent event) {
+        CopyOnWriteArrayList<Consumer<TaskEvent>> ownerListeners = listeners.get(owner);
+        if (ownerListeners != null) {
+            for (Consumer<TaskEvent> listener : ownerListeners) {
+                listener.accept(event);
+            }
+        }
+    }
+
+    /**
+     * @return number of subscribed listeners of all owners
+     */
+    public int size() {
+        return size.get();
+    }
+}
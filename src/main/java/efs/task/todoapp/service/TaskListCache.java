@@ -0,0 +1,185 @@
+package efs.task.todoapp.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of encoded task lists by owner. An entry holds the response body of all tasks of an owner together
+ * with the version of the owner's tasks it was encoded at, and is only returned for that version, so a list changed
+ * without {@link #invalidate(String)} is never served from the cache.
+ * <p>
+ * The cache is bounded by the bytes of the cached bodies. When the bound is crossed, least recently used entries are
+ * evicted until a quarter of it is free again. Bodies larger than an eighth of the bound are not cached.
+ */
+public class TaskListCache {
+    /**
+     * Estimated heap taken by an entry besides the body: map node, entry and owner.
+     */
+    static final int ENTRY_OVERHEAD = 128;
+    /**
+     * Minimal size of an encoded task, <code>{"id":"...","description":"x"}</code>.
+     */
+    private static final int MIN_TASK_BYTES = 57;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes bound of the cached bytes, <code>0</code> disables the cache
+     */
+    public TaskListCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 8;
+    }
+
+    public static TaskListCache fromSystemProperties() {
+        return new TaskListCache(Long.getLong("todo.cache.bytes", 16L * 1024 * 1024));
+    }
+
+    /**
+     * @param owner owner of the tasks
+     * @param version current version of the owner's tasks
+     * @return encoded tasks or <code>null</code> if they are not cached at this version
+     */
+    public byte[] get(String owner, long version) {
+        if (maxBytes <= 0) {
+            return null;
+        }
+        Entry entry = entries.get(owner);
+        if (entry == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        hits.increment();
+        return entry.body;
+    }
+
+    /**
+     * Tells whether a list of that many tasks may fit into the cache, so larger lists can be streamed without
+     * encoding them into a byte array first.
+     */
+    public boolean mayCache(int tasks) {
+        return (long) tasks * MIN_TASK_BYTES + 2 <= maxEntryBytes;
+    }
+
+    /**
+     * Caches encoded tasks unless a body of a later version is cached already.
+     *
+     * @param owner owner of the tasks
+     * @param version version of the owner's tasks read before the tasks were
+     * @param body encoded tasks, must not be modified afterwards
+     */
+    public void put(String owner, long version, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+        Entry entry = new Entry(version, body);
+        entries.compute(owner, (key, cached) -> {
+            if (cached != null && cached.version > version) {
+                return cached;
+            }
+            bytes.addAndGet(entry.size(key) - (cached == null ? 0 : cached.size(key)));
+            return entry;
+        });
+        if (bytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes the cached tasks of the owner.
+     *
+     * @param owner owner whose tasks have been changed
+     */
+    public void invalidate(String owner) {
+        if (maxBytes <= 0) {
+            return;
+        }
+        Entry entry = entries.remove(owner);
+        if (entry != null) {
+            bytes.addAndGet(-entry.size(owner));
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return estimated heap taken by the cached entries
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict() {
+        if (bytes.get() <= maxBytes) {
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(entries.size());
+        entries.forEach((owner, entry) -> candidates.add(new Candidate(owner, entry)));
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccess));
+        long target = maxBytes - maxBytes / 4;
+        for (Candidate candidate : candidates) {
+            if (bytes.get() <= target) {
+                break;
+            }
+            if (entries.remove(candidate.owner, candidate.entry)) {
+                bytes.addAndGet(-candidate.entry.size(candidate.owner));
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final byte[] body;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+
+        private long size(String owner) {
+            return ENTRY_OVERHEAD + 2L * owner.length() + body.length;
+        }
+    }
+
+    /**
+     * Entry with its access time read once, as it may change while the candidates are sorted.
+     */
+    private static final class Candidate {
+        private final String owner;
+        private final Entry entry;
+        private final long lastAccess;
+
+        private Candidate(String owner, Entry entry) {
+            this.owner = owner;
+            this.entry = entry;
+            this.lastAccess = entry.lastAccess;
+        }
+    }
+}
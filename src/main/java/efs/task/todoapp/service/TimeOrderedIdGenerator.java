@@ -0,0 +1,69 @@
+package efs.task.todoapp.service;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 4 UUIDs ordered by creation time, unique by construction instead of by chance.
+ * <p>
+ * Every generator thread is mapped to one of several stripes. A stripe holds a counter starting at the current time
+ * in milliseconds shifted left by 22 bits, so it yields up to 4M identifiers per millisecond and runs ahead of the
+ * clock if more are needed. An identifier is built from the counter, the stripe index and 44 random bits chosen once
+ * per generator:
+ * <pre>
+ * most significant bits:  millis (48) | version 4 (4) | sequence high (12)
+ * least significant bits: variant 2 (2) | sequence low (10) | stripe (8) | generator (44)
+ * </pre>
+ * Counters only grow and every stripe has its own index, so a generator never repeats an identifier. The random bits
+ * separate generators of different processes, and identifiers sort by time at millisecond granularity, which keeps
+ * recently created tasks close to each other in sorted indexes.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    private static final int SEQUENCE_BITS = 22;
+    private static final long VERSION_4 = 0x4000L;
+    private static final long VARIANT_2 = 0x8000_0000_0000_0000L;
+    private static final long GENERATOR_MASK = (1L << 44) - 1;
+    private static final int MAX_STRIPES = 256;
+
+    private final AtomicLong[] stripes;
+    private final long generator;
+
+    public TimeOrderedIdGenerator() {
+        this(Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1));
+    }
+
+    /**
+     * @param stripes number of independent counters, a power of two not greater than 256
+     */
+    public TimeOrderedIdGenerator(int stripes) {
+        if (stripes <= 0 || stripes > MAX_STRIPES || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Number of stripes must be a power of two not greater than 256");
+        }
+        this.stripes = new AtomicLong[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new AtomicLong();
+        }
+        this.generator = new SecureRandom().nextLong() & GENERATOR_MASK;
+    }
+
+    @Override
+    public UUID nextId() {
+        int stripe = (int) Thread.currentThread().getId() & (stripes.length - 1);
+        long sequence = next(stripes[stripe]);
+        long millis = sequence >>> SEQUENCE_BITS;
+        long mostSignificantBits = millis << 16 | VERSION_4 | (sequence >>> 10 & 0xFFF);
+        long leastSignificantBits = VARIANT_2 | (sequence & 0x3FF) << 52 | (long) stripe << 44 | generator;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    private static long next(AtomicLong counter) {
+        while (true) {
+            long current = counter.get();
+            long next = Math.max(current + 1, System.currentTimeMillis() << SEQUENCE_BITS);
+            if (counter.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -1,77 +1,290 @@
 package efs.task.todoapp.service;
 
+import efs.task.todoapp.ToDoApplication;
 import efs.task.todoapp.repository.*;
 import efs.task.todoapp.service.exceptions.BadRequestException;
+import efs.task.todoapp.service.exceptions.ChangesExpiredException;
+import efs.task.todoapp.service.exceptions.NotRequiredUserException;
+import efs.task.todoapp.service.exceptions.NotRightsToTaskException;
+import efs.task.todoapp.service.exceptions.ServiceUnavailableException;
+import efs.task.todoapp.service.exceptions.TaskNotFoundException;
 import efs.task.todoapp.service.exceptions.UserExistsException;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracing;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
+import java.util.logging.Logger;
 
+@SuppressWarnings("try")
 public class ToDoService {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    private static final int MAX_ID_ATTEMPTS = 3;
     private final UserRepository userRepository;
     private final TaskRepository taskRepository;
+    private final CredentialCache credentialCache;
+    private final PasswordHasher passwordHasher;
+    private final IdGenerator idGenerator;
+    private final TaskListCache taskListCache;
+    private final TaskEventBus taskEvents = new TaskEventBus();
 
     public ToDoService(UserRepository userRepository, TaskRepository taskRepository) {
+        this(userRepository, taskRepository, new CredentialCache(10_000, 5, TimeUnit.MINUTES),
+                PasswordHasher.fromSystemProperties());
+    }
+
+    public ToDoService(UserRepository userRepository, TaskRepository taskRepository, CredentialCache credentialCache,
+                       PasswordHasher passwordHasher) {
+        this(userRepository, taskRepository, credentialCache, passwordHasher, new TimeOrderedIdGenerator());
+    }
+
+    public ToDoService(UserRepository userRepository, TaskRepository taskRepository, CredentialCache credentialCache,
+                       PasswordHasher passwordHasher, IdGenerator idGenerator) {
+        this(userRepository, taskRepository, credentialCache, passwordHasher, idGenerator,
+                TaskListCache.fromSystemProperties());
+    }
+
+    public ToDoService(UserRepository userRepository, TaskRepository taskRepository, CredentialCache credentialCache,
+                       PasswordHasher passwordHasher, IdGenerator idGenerator, TaskListCache taskListCache) {
         this.userRepository = userRepository;
         this.taskRepository = taskRepository;
+        this.credentialCache = credentialCache;
+        this.passwordHasher = passwordHasher;
+        this.idGenerator = idGenerator;
+        this.taskListCache = taskListCache;
+        taskRepository.setChangeListener(new TaskChangeListener() {
+            @Override
+            public void taskSaved(String owner, TaskEntity task, boolean created, long sequence) {
+                tasksChanged(owner, new TaskEvent(created ? TaskEvent.Type.CREATED : TaskEvent.Type.UPDATED,
+                        task.getId(), task, sequence));
+            }
+
+            @Override
+            public void taskDeleted(String owner, UUID id, long sequence) {
+                tasksChanged(owner, new TaskEvent(TaskEvent.Type.DELETED, id, null, sequence));
+            }
+        });
     }
 
     public boolean isUserExists(UserEntity userEntity) {
         return userRepository.query(userEntity.getUsername()) != null;
     }
 
-    public void saveUser(UserEntity userEntity) throws BadRequestException, UserExistsException {
-        if (!isUserDataValid(userEntity)) {
-            throw new BadRequestException("User data is not valid");
-        } else if (isUserExists(userEntity)) {
-            throw new UserExistsException("User " + userEntity.getUsername() + " exists");
-        } else {
-            userRepository.save(userEntity);
+    public void saveUser(UserEntity userEntity) throws BadRequestException, UserExistsException,
+            ServiceUnavailableException {
+        try (Span span = Tracing.span("ToDoService.saveUser")) {
+            if (!isUserDataValid(userEntity)) {
+                throw new BadRequestException("User data is not valid");
+            } else if (isUserExists(userEntity)) {
+                throw new UserExistsException("User " + userEntity.getUsername() + " exists");
+            }
+            String passwordHash = passwordHasher.hash(userEntity.getPassword());
+            if (userRepository.save(new UserEntity(userEntity.getUsername(), null, passwordHash)) == null) {
+                throw new UserExistsException("User " + userEntity.getUsername() + " exists");
+            }
         }
     }
 
-    public UUID saveTask(TaskEntity task, List<String> userData) {
-
-        UUID idTask = UUID.randomUUID();
-        while (taskRepository.query(idTask) != null) {
-            idTask = UUID.randomUUID();
+    /**
+     * Stores the task under a new id, generating another one if the id is already used.
+     *
+     * @throws IllegalStateException if the generator keeps returning ids which are already used
+     */
+    public UUID saveTask(TaskEntity task, String username) {
+        try (Span span = Tracing.span("ToDoService.saveTask")) {
+            task.setOwner(username);
+            for (int attempt = 1; ; attempt++) {
+                task.setId(idGenerator.nextId());
+                if (taskRepository.save(task) != null) {
+                    break;
+                }
+                LOGGER.warning("Generated task id " + task.getId() + " is already used");
+                if (attempt == MAX_ID_ATTEMPTS) {
+                    throw new IllegalStateException("No unused task id after " + attempt + " attempts");
+                }
+            }
+            return task.getId();
         }
-        task.setId(idTask);
-        task.setOwner(userData.get(0));
-        taskRepository.save(task);
-        return idTask;
     }
 
     public boolean isTaskValid(TaskEntity task) throws BadRequestException {
-        if (task != null && task.getDescription() != null && !task.getDescription().equals("")) {
-            if (task.getDue() != null) {
-                try {
-                    java.time.format.DateTimeFormatter.ISO_DATE.parse(task.getDue());
-                } catch (Exception e) {
-                    throw new BadRequestException(e.getMessage());
+        try (Span span = Tracing.span("ToDoService.isTaskValid")) {
+            if (task != null && task.getDescription() != null && !task.getDescription().equals("")) {
+                if (task.getDue() != null) {
+                    try {
+                        java.time.format.DateTimeFormatter.ISO_DATE.parse(task.getDue());
+                    } catch (Exception e) {
+                        throw new BadRequestException(e.getMessage());
+                    }
                 }
+                return false;
+            } else {
+                return true;
             }
-            return false;
-        } else {
-            return true;
         }
     }
 
     public List<TaskEntity> getTasksList(String userId) {
-        return taskRepository.query(userTasks(userId));
+        try (Span span = Tracing.span("ToDoService.getTasksList")) {
+            return taskRepository.queryByOwner(userId);
+        }
+    }
+
+    /**
+     * @return all tasks of the user, read lazily while iterated
+     */
+    public Iterable<TaskEntity> getTasks(String username) {
+        return taskRepository.iterateByOwner(username);
+    }
+
+    public int getTasksCount(String username) {
+        return taskRepository.ownerTaskCount(username);
+    }
+
+    public TaskPage getTasksPage(String userId, TaskQuery query) {
+        try (Span span = Tracing.span("ToDoService.getTasksPage")) {
+            return taskRepository.queryByOwner(userId, query);
+        }
+    }
+
+    /**
+     * @return version of the user's tasks, changed by every change of them
+     */
+    public long getTasksVersion(String username) {
+        return taskRepository.ownerVersion(username);
+    }
+
+    /**
+     * @return sequence number after which changes of the user's tasks read after this call are to be requested
+     */
+    public long getSyncSequence(String username) {
+        return taskRepository.syncSequence(username);
+    }
+
+    /**
+     * Returns the user's tasks created or updated after the sequence number and the identifiers of the deleted ones.
+     *
+     * @throws ChangesExpiredException if the changes are unknown and all tasks have to be read again
+     */
+    public TaskChanges getTaskChanges(String username, long since) throws ChangesExpiredException {
+        try (Span span = Tracing.span("ToDoService.getTaskChanges")) {
+            TaskChanges changes = taskRepository.changesSince(username, since);
+            if (changes == null) {
+                throw new ChangesExpiredException("Changes since " + since + " are no longer known");
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the task exists and belongs to the user, checked without reading the task
+     */
+    public boolean isTaskOwnedBy(String uuid, String username) {
+        return taskRepository.isOwnedBy(UUID.fromString(uuid), username);
+    }
+
+    /**
+     * Returns all tasks of the user encoded by a previous call of {@link #cacheTasksList(String, long, byte[])}.
+     *
+     * @param version current version of the user's tasks
+     * @return encoded tasks or <code>null</code> if they have to be read and encoded
+     */
+    public byte[] getCachedTasksList(String username, long version) {
+        return taskListCache.get(username, version);
+    }
+
+    /**
+     * @return <code>true</code> if a list of that many tasks is worth encoding for the cache
+     */
+    public boolean isTasksListCacheable(int tasks) {
+        return taskListCache.mayCache(tasks);
+    }
+
+    /**
+     * @param version version of the user's tasks read before the tasks were
+     * @param body all tasks of the user, encoded
+     */
+    public void cacheTasksList(String username, long version, byte[] body) {
+        taskListCache.put(username, version, body);
+    }
+
+    public TaskListCache getTaskListCache() {
+        return taskListCache;
+    }
+
+    /**
+     * @return events of every created, updated and deleted task, batch operations and their compensations included
+     */
+    public TaskEventBus getTaskEvents() {
+        return taskEvents;
     }
 
     public static Predicate<TaskEntity> userTasks(String userId) {
         return p -> p.getOwner().equals(userId);
     }
 
-    public boolean isUserFromHeaderValid(List<String> userData) throws BadRequestException {
+    public boolean isUserFromHeaderValid(List<String> userData) throws BadRequestException,
+            ServiceUnavailableException {
+        return findUser(userData) == null;
+    }
+
+    /**
+     * Verifies decoded credentials and remembers the raw header value they came from.
+     *
+     * @param auth raw value of the <code>auth</code> header
+     * @param userData username and password decoded from the header
+     * @return username of the verified user
+     */
+    public String verifyUser(String auth, List<String> userData) throws BadRequestException,
+            NotRequiredUserException, ServiceUnavailableException {
+        try (Span span = Tracing.span("ToDoService.verifyUser")) {
+            UserEntity user = findUser(userData);
+            if (user == null) {
+                throw new NotRequiredUserException("User not found or user's password is incorrect!");
+            }
+            credentialCache.put(auth, user);
+            return user.getUsername();
+        }
+    }
+
+    /**
+     * Returns user verified before for the same <code>auth</code> header value, without decoding it again.
+     *
+     * @param auth raw value of the <code>auth</code> header
+     * @return username or <code>null</code> if the header value has to be verified
+     */
+    public String getVerifiedUser(String auth) {
+        try (Span span = Tracing.span("ToDoService.getVerifiedUser")) {
+            if (auth == null) {
+                return null;
+            }
+            UserEntity cachedUser = credentialCache.get(auth);
+            if (cachedUser == null) {
+                return null;
+            }
+            if (userRepository.query(cachedUser.getUsername()) != cachedUser) {
+                credentialCache.invalidate(cachedUser.getUsername());
+                return null;
+            }
+            return cachedUser.getUsername();
+        }
+    }
 
+    private UserEntity findUser(List<String> userData) throws BadRequestException, ServiceUnavailableException {
         if (userData.get(0) != null && !(userData.get(0)).equals("") && userData.get(1) != null &&
                 !(userData.get(1)).equals("") && !(userData.get(1)).equals(" ") && !(userData.get(0)).equals(" ")) {
             UserEntity user = this.userRepository.query(userData.get(0));
-            return user == null || !user.getPassword().equals(userData.get(1));
+            if (user == null) {
+                passwordHasher.verifyMissing(userData.get(1));
+                return null;
+            }
+            return passwordHasher.verify(userData.get(1), user.getPasswordHash()) ? user : null;
         } else {
             throw new BadRequestException("username is invalid");
         }
@@ -86,15 +299,172 @@ public class ToDoService {
         return taskRepository.query(UUID.fromString(uuid));
     }
 
-    public void deleteTask(UUID uuid) {
-        taskRepository.delete(uuid);
+    public TaskEntity getOwnedTask(String uuid, String username) throws TaskNotFoundException,
+            NotRightsToTaskException {
+        try (Span span = Tracing.span("ToDoService.getOwnedTask")) {
+            TaskEntity task = taskRepository.query(UUID.fromString(uuid));
+            if (task == null) {
+                throw new TaskNotFoundException("Task doesn't exists!");
+            }
+            if (!task.getOwner().equals(username)) {
+                throw new NotRightsToTaskException("You haven't got rights to this task!");
+            }
+            return task;
+        }
+    }
+
+    public void deleteTask(String uuid, String username) throws TaskNotFoundException, NotRightsToTaskException {
+        try (Span span = Tracing.span("ToDoService.deleteTask")) {
+            removeOwnedTask(uuid, username);
+        }
+    }
+
+    public TaskEntity updateTask(TaskEntity task, String username, String uuid) throws TaskNotFoundException,
+            NotRightsToTaskException {
+        try (Span span = Tracing.span("ToDoService.updateTask")) {
+            replaceOwnedTask(task, username, uuid);
+            return task;
+        }
+    }
+
+    /**
+     * Applies the operations in order, skipping the invalid ones and those failing on a missing or foreign task.
+     * <p>
+     * In atomic mode nothing is applied unless every operation is valid, and operations applied before a failing
+     * one are compensated, so the batch takes effect completely or not at all. Other requests may still observe
+     * the intermediate state.
+     *
+     * @param operations operations to be applied
+     * @param username owner of the tasks
+     * @param atomic <code>true</code> if either all or none of the operations have to be applied
+     * @return results of the operations, in the same order
+     */
+    public List<BatchResult> applyBatch(List<BatchOperation> operations, String username, boolean atomic) {
+        try (Span span = Tracing.span("ToDoService.applyBatch")) {
+            List<BatchResult> results = new ArrayList<>(operations.size());
+            if (atomic) {
+                boolean valid = true;
+                for (BatchOperation operation : operations) {
+                    boolean operationValid = isOperationValid(operation);
+                    results.add(operationValid ? BatchResult.NOT_APPLIED : BatchResult.INVALID);
+                    valid &= operationValid;
+                }
+                if (!valid) {
+                    return results;
+                }
+                results.clear();
+            }
+            Deque<BooleanSupplier> compensations = new ArrayDeque<>();
+            for (BatchOperation operation : operations) {
+                BatchResult result;
+                try {
+                    result = apply(operation, username, compensations);
+                } catch (RuntimeException e) {
+                    if (atomic) {
+                        compensate(compensations, username);
+                    }
+                    throw e;
+                }
+                results.add(result);
+                if (atomic && !result.isApplied()) {
+                    compensate(compensations, username);
+                    for (int i = 0; i < results.size() - 1; i++) {
+                        results.set(i, BatchResult.NOT_APPLIED);
+                    }
+                    while (results.size() < operations.size()) {
+                        results.add(BatchResult.NOT_APPLIED);
+                    }
+                    return results;
+                }
+            }
+            return results;
+        }
+    }
+
+    private static void compensate(Deque<BooleanSupplier> compensations, String username) {
+        while (!compensations.isEmpty()) {
+            if (!compensations.pop().getAsBoolean()) {
+                LOGGER.warning("Batch operation of " + username + " could not be compensated");
+            }
+        }
+    }
+
+    private BatchResult apply(BatchOperation operation, String username, Deque<BooleanSupplier> compensations) {
+        if (!isOperationValid(operation)) {
+            return BatchResult.INVALID;
+        }
+        TaskEntity task = operation.getTask();
+        try {
+            switch (operation.getType()) {
+                case CREATE:
+                    UUID id = saveTask(task, username);
+                    compensations.push(() -> taskRepository.delete(id, task));
+                    return new BatchResult(BatchResult.Outcome.CREATED, id);
+                case UPDATE:
+                    TaskEntity replaced = replaceOwnedTask(task, username, operation.getId());
+                    compensations.push(() -> taskRepository.replace(task.getId(), task, replaced));
+                    return new BatchResult(BatchResult.Outcome.UPDATED, task.getId());
+                default:
+                    TaskEntity removed = removeOwnedTask(operation.getId(), username);
+                    compensations.push(() -> taskRepository.save(removed) != null);
+                    return new BatchResult(BatchResult.Outcome.DELETED, removed.getId());
+            }
+        } catch (TaskNotFoundException e) {
+            return new BatchResult(BatchResult.Outcome.NOT_FOUND, UUID.fromString(operation.getId()));
+        } catch (NotRightsToTaskException e) {
+            return new BatchResult(BatchResult.Outcome.FORBIDDEN, UUID.fromString(operation.getId()));
+        }
+    }
+
+    private boolean isOperationValid(BatchOperation operation) {
+        if (operation == null || operation.getType() == null) {
+            return false;
+        }
+        if (operation.getType() != BatchOperation.Type.DELETE) {
+            try {
+                if (isTaskValid(operation.getTask())) {
+                    return false;
+                }
+            } catch (BadRequestException e) {
+                return false;
+            }
+        }
+        if (operation.getType() != BatchOperation.Type.CREATE) {
+            try {
+                UUID.fromString(operation.getId());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TaskEntity removeOwnedTask(String uuid, String username) throws TaskNotFoundException,
+            NotRightsToTaskException {
+        TaskEntity oldTask;
+        do {
+            oldTask = getOwnedTask(uuid, username);
+        } while (!taskRepository.delete(oldTask.getId(), oldTask));
+        return oldTask;
+    }
+
+    private TaskEntity replaceOwnedTask(TaskEntity task, String username, String uuid) throws TaskNotFoundException,
+            NotRightsToTaskException {
+        task.setOwner(username);
+        TaskEntity oldTask;
+        do {
+            oldTask = getOwnedTask(uuid, task.getOwner());
+            task.setId(oldTask.getId());
+        } while (!taskRepository.replace(oldTask.getId(), oldTask, task));
+        return oldTask;
     }
 
-    public TaskEntity updateTask(TaskEntity task, List<String> userData, UUID uuid) {
-        TaskEntity newTask = taskRepository.update(uuid, task);
-        task.setId(uuid);
-        task.setOwner(userData.get(0));
-        return newTask;
+    /**
+     * Called by the task repository while the owner's index is locked, so events are published in sequence order.
+     */
+    private void tasksChanged(String username, TaskEvent event) {
+        taskListCache.invalidate(username);
+        taskEvents.publish(username, event);
     }
 
 }
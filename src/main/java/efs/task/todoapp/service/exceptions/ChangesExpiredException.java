@@ -0,0 +1,7 @@
+package efs.task.todoapp.service.exceptions;
+
+public class ChangesExpiredException extends Exception {
+    public ChangesExpiredException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,7 @@
+package efs.task.todoapp.service.exceptions;
+
+public class ServiceUnavailableException extends Exception {
+    public ServiceUnavailableException(String errorMessage) {
+        super(errorMessage);
+    }
+}
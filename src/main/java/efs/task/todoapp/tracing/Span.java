@@ -0,0 +1,42 @@
+package efs.task.todoapp.tracing;
+
+/**
+ * Timed section of a trace, ended by {@link #close()}, so spans are used with try-with-resources. Spans started
+ * while tracing is disabled or outside of a trace are the shared {@link #NOOP} span, whose <code>close</code> does
+ * nothing. The span variable is not referenced in the block, so classes opening spans suppress the <code>try</code>
+ * lint warning.
+ */
+public final class Span implements AutoCloseable {
+    static final Span NOOP = new Span(null, null, 0, 0);
+
+    private final Trace trace;
+    private final String name;
+    private final int depth;
+    private final long startNanos;
+
+    Span(Trace trace, String name, int depth, long startNanos) {
+        this.trace = trace;
+        this.name = name;
+        this.depth = depth;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public void close() {
+        if (trace != null) {
+            trace.end(this, System.nanoTime());
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+}
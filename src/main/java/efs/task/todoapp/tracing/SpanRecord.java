@@ -0,0 +1,51 @@
+package efs.task.todoapp.tracing;
+
+/**
+ * Finished span as kept in the ring buffer and in dumped traces.
+ */
+public final class SpanRecord {
+    private final String traceId;
+    private final String name;
+    private final int depth;
+    private final long offsetNanos;
+    private final long durationNanos;
+
+    SpanRecord(String traceId, String name, int depth, long offsetNanos, long durationNanos) {
+        this.traceId = traceId;
+        this.name = name;
+        this.depth = depth;
+        this.offsetNanos = offsetNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of spans enclosing this one, <code>0</code> for the root span of a request
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return time from the start of the trace to the start of the span
+     */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s +%.3f ms %s %.3f ms", traceId, offsetNanos / 1e6, name, durationNanos / 1e6);
+    }
+}
@@ -0,0 +1,73 @@
+package efs.task.todoapp.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spans of one request, confined to the thread handling it. At most {@link #MAX_SPANS} spans are kept, further ones
+ * are only counted.
+ */
+final class Trace {
+    static final int MAX_SPANS = 256;
+
+    private final Tracer tracer;
+    private final String id;
+    private final long startNanos;
+    private final List<SpanRecord> spans = new ArrayList<>();
+    private int depth;
+    private int droppedSpans;
+
+    Trace(Tracer tracer, String id, long startNanos) {
+        this.tracer = tracer;
+        this.id = id;
+        this.startNanos = startNanos;
+    }
+
+    Span start(String name) {
+        return start(name, System.nanoTime());
+    }
+
+    Span start(String name, long startNanos) {
+        return new Span(this, name, depth++, startNanos);
+    }
+
+    void end(Span span, long endNanos) {
+        depth = span.getDepth();
+        SpanRecord record = new SpanRecord(id, span.getName(), span.getDepth(), span.getStartNanos() - startNanos,
+                endNanos - span.getStartNanos());
+        tracer.record(record);
+        if (spans.size() < MAX_SPANS) {
+            spans.add(record);
+        } else {
+            droppedSpans++;
+        }
+        if (span.getDepth() == 0) {
+            tracer.finish(this, endNanos - startNanos);
+        }
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Renders the spans indented by depth, in the order they were started.
+     */
+    String dump(long durationNanos) {
+        List<SpanRecord> ordered = new ArrayList<>(spans);
+        ordered.sort((first, second) -> first.getOffsetNanos() != second.getOffsetNanos()
+                ? Long.compare(first.getOffsetNanos(), second.getOffsetNanos())
+                : Integer.compare(first.getDepth(), second.getDepth()));
+        StringBuilder dump = new StringBuilder(64 + ordered.size() * 64);
+        dump.append(String.format("trace %s took %.3f ms", id, durationNanos / 1e6));
+        for (SpanRecord record : ordered) {
+            dump.append('\n').append("  ".repeat(record.getDepth() + 1))
+                    .append(String.format("%s +%.3f ms %.3f ms", record.getName(), record.getOffsetNanos() / 1e6,
+                            record.getDurationNanos() / 1e6));
+        }
+        if (droppedSpans > 0) {
+            dump.append('\n').append("  ").append(droppedSpans).append(" more spans");
+        }
+        return dump.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package efs.task.todoapp.tracing;
+
+import efs.task.todoapp.ToDoApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+/**
+ * Collects finished spans into a lock-free ring buffer of fixed size, overwriting the oldest ones. Traces of requests
+ * slower than the threshold are logged in full and kept in a second, smaller ring.
+ */
+public class Tracer {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    private static final int SLOW_TRACES = 64;
+
+    private final ThreadLocal<Trace> current = new ThreadLocal<>();
+    private final AtomicReferenceArray<SpanRecord> spans;
+    private final AtomicLong nextSpan = new AtomicLong();
+    private final AtomicReferenceArray<String> slowTraces = new AtomicReferenceArray<>(SLOW_TRACES);
+    private final AtomicLong nextSlowTrace = new AtomicLong();
+    private final long slowThresholdNanos;
+
+    /**
+     * @param bufferSize          number of recent spans kept, rounded up to a power of two
+     * @param slowThresholdMillis requests taking longer are dumped
+     */
+    public Tracer(int bufferSize, long slowThresholdMillis) {
+        if (bufferSize <= 0 || bufferSize > 1 << 30) {
+            throw new IllegalArgumentException("Span buffer size must be between 1 and 2^30");
+        }
+        spans = new AtomicReferenceArray<>(Integer.highestOneBit(bufferSize * 2 - 1));
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * Reads <code>todo.tracing.*</code> system properties.
+     *
+     * @return tracer, or <code>null</code> if tracing is disabled
+     */
+    public static Tracer fromSystemProperties() {
+        if (!Boolean.getBoolean("todo.tracing.enabled")) {
+            return null;
+        }
+        return new Tracer(Integer.getInteger("todo.tracing.buffer", 8192),
+                Long.getLong("todo.tracing.slow", 500));
+    }
+
+    /**
+     * Starts a trace on the calling thread, whose root span ends it.
+     *
+     * @param traceId id of the trace, a random one is generated if <code>null</code>
+     * @param name    name of the root span
+     */
+    public Span begin(String traceId, String name) {
+        long now = System.nanoTime();
+        Trace trace = new Trace(this, traceId != null ? traceId : newTraceId(), now);
+        current.set(trace);
+        return trace.start(name, now);
+    }
+
+    /**
+     * @return id of the trace of the calling thread, <code>null</code> if there is none
+     */
+    public String currentTraceId() {
+        Trace trace = current.get();
+        return trace == null ? null : trace.getId();
+    }
+
+    Span span(String name) {
+        Trace trace = current.get();
+        return trace == null ? Span.NOOP : trace.start(name);
+    }
+
+    void record(SpanRecord record) {
+        spans.set((int) (nextSpan.getAndIncrement() & (spans.length() - 1)), record);
+    }
+
+    void finish(Trace trace, long durationNanos) {
+        current.remove();
+        if (durationNanos >= slowThresholdNanos) {
+            String dump = trace.dump(durationNanos);
+            slowTraces.set((int) (nextSlowTrace.getAndIncrement() % SLOW_TRACES), dump);
+            LOGGER.warning("Slow request, " + dump);
+        }
+    }
+
+    /**
+     * @return recent spans, oldest first; spans being overwritten concurrently may be missing
+     */
+    public List<SpanRecord> recentSpans() {
+        return recent(spans, nextSpan.get());
+    }
+
+    /**
+     * @return dumps of recent slow traces, oldest first
+     */
+    public List<String> slowTraces() {
+        return recent(slowTraces, nextSlowTrace.get());
+    }
+
+    private static <T> List<T> recent(AtomicReferenceArray<T> ring, long next) {
+        int size = ring.length();
+        List<T> recent = new ArrayList<>((int) Math.min(next, size));
+        for (long i = Math.max(0, next - size); i < next; i++) {
+            T item = ring.get((int) (i % size));
+            if (item != null) {
+                recent.add(item);
+            }
+        }
+        return recent;
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,21 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.service.BatchOperation;
+
+import java.util.List;
+
+/**
+ * Body of a <code>POST /todo/task/batch</code> request.
+ */
+final class BatchRequest {
+    private boolean atomic;
+    private List<BatchOperation> operations;
+
+    boolean isAtomic() {
+        return atomic;
+    }
+
+    List<BatchOperation> getOperations() {
+        return operations;
+    }
+}
@@ -0,0 +1,186 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.ToDoApplication;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executor handed to the <code>HttpServer</code>. At most <code>threads + queueDepth</code> exchanges are in flight;
+ * an exchange over that limit runs on a small rejection pool flagged as overloaded, so {@link OverloadFilter} can
+ * answer it with 503 instead of the connection being dropped. Exchanges never run on the dispatcher thread, where a
+ * slow client would block accepting every other connection. When the rejection pool is saturated as well, the
+ * exchange is refused with an <code>IOException</code>, the only failure upon which the dispatcher of every JDK
+ * version closes the connection; other exceptions would leave it open on JDK 11 and the client waiting.
+ */
+public class BoundedExecutor implements Executor {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private static final int REJECTION_THREADS = 2;
+    private static final int REJECTION_QUEUE = 64;
+
+    private final ExecutorService delegate;
+    private final ThreadPoolExecutor rejections;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final int threads;
+
+    BoundedExecutor(ExecutorService delegate, int maxInFlight, int threads) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.threads = threads;
+        this.rejections = new ThreadPoolExecutor(REJECTION_THREADS, REJECTION_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REJECTION_QUEUE), daemonThreads("todo-http-rejection-"));
+        rejections.allowCoreThreadTimeOut(true);
+    }
+
+    public static BoundedExecutor create(ServerConfig config) {
+        return new BoundedExecutor(createDelegate(config), config.getThreads() + config.getQueueDepth(),
+                config.getThreads());
+    }
+
+    static boolean isOverloaded() {
+        return OVERLOADED.get();
+    }
+
+    /**
+     * Throws an <code>IOException</code>, although it is not declared, if the exchange can neither run nor be
+     * answered with 503, so the server closes the connection.
+     */
+    @Override
+    public void execute(Runnable exchange) {
+        if (!permits.tryAcquire()) {
+            try {
+                rejections.execute(() -> {
+                    OVERLOADED.set(Boolean.TRUE);
+                    try {
+                        exchange.run();
+                    } finally {
+                        OVERLOADED.set(Boolean.FALSE);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                throw refuse(e);
+            }
+            return;
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    exchange.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e instanceof RejectedExecutionException ? refuse((RejectedExecutionException) e) : e;
+        }
+    }
+
+    /**
+     * Throws the rejection as an <code>IOException</code>, which <code>Executor.execute</code> cannot declare.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> RuntimeException refuse(RejectedExecutionException e) throws T {
+        throw (T) new IOException("Exchange refused, the server is overloaded", e);
+    }
+
+    /**
+     * @return number of exchanges queued or running
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * @return number of exchanges waiting for a worker; for executors without a queue, those over the thread count
+     */
+    public int getQueued() {
+        if (delegate instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) delegate).getQueue().size();
+        }
+        if (delegate instanceof ForkJoinPool) {
+            return (int) Math.min(Integer.MAX_VALUE, ((ForkJoinPool) delegate).getQueuedSubmissionCount()
+                    + ((ForkJoinPool) delegate).getQueuedTaskCount());
+        }
+        return Math.max(0, getInFlight() - threads);
+    }
+
+    public ExecutorService getDelegate() {
+        return delegate;
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+        rejections.shutdown();
+    }
+
+    /**
+     * @return <code>true</code> if every exchange has finished after {@link #shutdown()}
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return delegate.awaitTermination(timeout, unit)
+                && rejections.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private static ExecutorService createDelegate(ServerConfig config) {
+        switch (config.getExecutorMode()) {
+            case WORK_STEALING:
+                return Executors.newWorkStealingPool(config.getThreads());
+            case VIRTUAL:
+                ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+                if (virtual != null) {
+                    return virtual;
+                }
+                LOGGER.warning("Virtual threads are not available on this JDK, falling back to a fixed pool");
+                return newFixedPool(config.getThreads());
+            case FIXED:
+            default:
+                return newFixedPool(config.getThreads());
+        }
+    }
+
+    private static ExecutorService newFixedPool(int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("todo-http-"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package efs.task.todoapp.web;
+
+public enum Endpoint {
+    CREATE_USER("POST", "/todo/user"),
+    CREATE_TASK("POST", "/todo/task"),
+    LIST_TASKS("GET", "/todo/task"),
+    BATCH_TASKS("POST", "/todo/task/batch"),
+    TASK_EVENTS("GET", "/todo/task/events"),
+    GET_TASK("GET", "/todo/task/{id}"),
+    UPDATE_TASK("PUT", "/todo/task/{id}"),
+    DELETE_TASK("DELETE", "/todo/task/{id}"),
+    UNKNOWN("", "");
+
+    private final String method;
+    private final String path;
+
+    Endpoint(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
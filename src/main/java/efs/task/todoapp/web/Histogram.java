@@ -0,0 +1,74 @@
+package efs.task.todoapp.web;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram with fixed upper bounds whose buckets are striped counters, so recording neither allocates nor contends on
+ * a shared cache line. Written in the Prometheus text format with cumulative buckets.
+ */
+final class Histogram {
+    private final long[] bounds;
+    private final String[] boundLabels;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+    private final long unit;
+
+    /**
+     * @param bounds inclusive upper bounds of the buckets in ascending order, a bucket for larger values is added
+     * @param unit   divisor turning recorded values into the exposed unit
+     */
+    Histogram(long[] bounds, long unit) {
+        this.bounds = bounds;
+        this.unit = unit;
+        boundLabels = new String[bounds.length];
+        buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            boundLabels[i] = format(bounds[i], unit);
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sum.add(value);
+    }
+
+    long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Writes the <code>_bucket</code>, <code>_sum</code> and <code>_count</code> samples.
+     *
+     * @param labels labels of the samples without braces, empty if there are none
+     */
+    void write(Writer out, String name, String labels) throws IOException {
+        String prefix = labels.isEmpty() ? "{" : "{" + labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            out.write(name + "_bucket" + prefix + "le=\"" + (i < bounds.length ? boundLabels[i] : "+Inf") + "\"} "
+                    + cumulative + "\n");
+        }
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.write(name + "_sum" + suffix + format(sum.sum(), unit) + "\n");
+        out.write(name + "_count" + suffix + cumulative + "\n");
+    }
+
+    private static String format(long value, long unit) {
+        return BigDecimal.valueOf(value).divide(BigDecimal.valueOf(unit)).stripTrailingZeros().toPlainString();
+    }
+}
@@ -1,86 +1,107 @@
 package efs.task.todoapp.web;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.repository.TaskChanges;
 import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskPage;
+import efs.task.todoapp.repository.TaskQuery;
 import efs.task.todoapp.service.*;
 import efs.task.todoapp.service.exceptions.BadRequestException;
+import efs.task.todoapp.service.exceptions.ChangesExpiredException;
 import efs.task.todoapp.service.exceptions.NotRequiredUserException;
 import efs.task.todoapp.service.exceptions.NotRightsToTaskException;
+import efs.task.todoapp.service.exceptions.ServiceUnavailableException;
 import efs.task.todoapp.service.exceptions.TaskNotFoundException;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracing;
 
 import static efs.task.todoapp.web.ResponseCodes.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 
+@SuppressWarnings("try")
 public class HttpTaskHandler implements HttpHandler {
     private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
-    private static final String idPattern =
-            "/todo/task/[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
-    private static final String base64Pattern = "^(?:[A-Za-z0-9+/]{4})*(?:[A-Za-z0-9+/]{2}==|[A-Za-z0-9+/]{3}=)?$";
-    private static final Gson gson = new Gson();
+    private static final Pattern base64Pattern =
+            Pattern.compile("^(?:[A-Za-z0-9+/]{4})*(?:[A-Za-z0-9+/]{2}==|[A-Za-z0-9+/]{3}=)?$");
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final String ETAG_HEADER = "ETag";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final String SEQUENCE_HEADER = "X-Sequence";
+    private static final String SINCE_PARAMETER = "since";
     private final ToDoService service;
-    private String auth = null;
+    private final TaskEventStream events;
+    private final String etagPrefix;
 
     public HttpTaskHandler(ToDoService service) {
+        this(service, TaskEventStream.fromSystemProperties(service.getTaskEvents()));
+    }
+
+    public HttpTaskHandler(ToDoService service, TaskEventStream events) {
         this.service = service;
+        this.events = events;
+        this.etagPrefix = "\"" + Long.toString(System.currentTimeMillis(), 36) + "-"
+                + Integer.toString(ThreadLocalRandom.current().nextInt() & Integer.MAX_VALUE, 36) + "-";
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        boolean streaming = false;
         try {
-            String uri = exchange.getRequestURI().toString();
-            String response = "";
-            auth = exchange.getRequestHeaders().getFirst("auth");
-
-            if (uri.matches("/todo/task")) {
-                switch (exchange.getRequestMethod()) {
-                    case "POST":
-                        response = postHandle(exchange);
-                        exchange.sendResponseHeaders(CREATED.getResponseCode(), response.length());
-                        break;
-                    case "GET":
-                        response = getHandle();
-                        exchange.sendResponseHeaders(OK.getResponseCode(), response.length());
-                        break;
-                    default:
-                        exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
-                }
-            } else if (uri.matches(idPattern)) {
-                switch (exchange.getRequestMethod()) {
-                    case "GET":
-                        response = getWithIdHandle(exchange);
-                        exchange.sendResponseHeaders(OK.getResponseCode(), response.length());
-                        break;
-                    case "DELETE":
-                        deleteHandle(exchange);
-                        exchange.sendResponseHeaders(OK.getResponseCode(), 0);
-                        break;
-                    case "PUT":
-                        response = putHandle(exchange);
-                        exchange.sendResponseHeaders(OK.getResponseCode(), response.length());
-                        break;
-                    default:
-                        exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
-                }
-            } else {
-                exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
+            Route route = TaskRouter.route(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath());
+            String auth = exchange.getRequestHeaders().getFirst("auth");
+            RequestContext context = new RequestContext(exchange, route, auth);
+
+            switch (route.getEndpoint()) {
+                case CREATE_TASK:
+                    sendResponse(exchange, CREATED, postHandle(context));
+                    break;
+                case LIST_TASKS:
+                    getHandle(context);
+                    break;
+                case BATCH_TASKS:
+                    batchHandle(context);
+                    break;
+                case GET_TASK:
+                    getWithIdHandle(context);
+                    break;
+                case TASK_EVENTS:
+                    eventsHandle(context);
+                    streaming = true;
+                    break;
+                case DELETE_TASK:
+                    deleteHandle(context);
+                    exchange.sendResponseHeaders(OK.getResponseCode(), 0);
+                    break;
+                case UPDATE_TASK:
+                    sendResponse(exchange, OK, putHandle(context));
+                    break;
+                default:
+                    exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
             }
 
-            if (!response.isEmpty()) {
-                OutputStream responseBody = exchange.getResponseBody();
-                responseBody.write(response.getBytes());
-                responseBody.close();
-                exchange.close();
+        } catch (PayloadTooLargeException e) {
+            if (!RequestBodyReader.discard(exchange.getRequestBody(), RequestBodyReader.MAX_DISCARDED_BYTES)) {
+                // a larger remainder is not worth reading, the connection is closed after the response
+                exchange.getResponseHeaders().set("Connection", "close");
             }
-
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getResponseCode(), 0);
         } catch (JsonSyntaxException | IllegalArgumentException | IOException | BadRequestException e) {
             exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
         } catch (NotRequiredUserException e) {
@@ -89,143 +110,305 @@ public class HttpTaskHandler implements HttpHandler {
             exchange.sendResponseHeaders(FORBIDDEN.getResponseCode(), 0);
         } catch (TaskNotFoundException e) {
             exchange.sendResponseHeaders(NOT_FOUND.getResponseCode(), 0);
+        } catch (ChangesExpiredException e) {
+            exchange.sendResponseHeaders(GONE.getResponseCode(), 0);
+        } catch (ServiceUnavailableException e) {
+            exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getResponseCode(), 0);
+        } catch (UncheckedIOException e) {
+            LOGGER.severe("Storing data failed: " + e.getMessage());
+            exchange.sendResponseHeaders(INTERNAL_SERVER_ERROR.getResponseCode(), 0);
+        } catch (IllegalStateException e) {
+            LOGGER.severe("Request failed: " + e.getMessage());
+            exchange.sendResponseHeaders(INTERNAL_SERVER_ERROR.getResponseCode(), 0);
         } catch (Exception e) {
             LOGGER.warning("Unhandled exception");
             exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
         } finally {
-            exchange.close();
+            if (!streaming) {
+                exchange.close();
+            }
         }
     }
 
-    public String postHandle(HttpExchange exchange) throws NotRequiredUserException, IOException, BadRequestException {
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        List<String> userData = handleTaskHeader(auth);
-        TaskEntity task = gson.fromJson(requestBody, TaskEntity.class);
+    public byte[] postHandle(RequestContext context) throws NotRequiredUserException, IOException,
+            BadRequestException, ServiceUnavailableException {
+        TaskEntity task;
+        try (Span span = Tracing.span("HttpTaskHandler.readBody")) {
+            task = RequestBodyReader.readTask(requestBody(context, RequestBodyReader.MAX_BODY_BYTES));
+        }
 
-        if (userData.isEmpty() || service.isTaskValid(task)) {
+        if (!hasCredentials(context) || service.isTaskValid(task)) {
             throw new BadRequestException("Auth or userData are not valid!");
         }
-        if (service.isUserFromHeaderValid(userData)) {
-            throw new NotRequiredUserException("User not found or user's password is incorrect!");
-        }
-        UUID taskId = service.saveTask(task, userData);
-        return "{ \"id\": \"" + taskId.toString() + "\"}";
+        verifyUser(context);
+        UUID taskId = service.saveTask(task, context.getUsername());
+        return TaskJsonWriter.idToBytes(taskId);
     }
 
-    public String getHandle() throws NotRequiredUserException, BadRequestException {
-        List<String> userData = handleTaskHeader(auth);
-        if (userData.isEmpty()) {
+    /**
+     * Responds with the user's tasks, or with the changes of them since the <code>since</code> parameter. A response
+     * with all tasks holds the sequence number to request the next changes with in the <code>X-Sequence</code>
+     * header.
+     */
+    public void getHandle(RequestContext context) throws NotRequiredUserException, BadRequestException,
+            ServiceUnavailableException, ChangesExpiredException, IOException {
+        if (!hasCredentials(context)) {
             throw new BadRequestException("Auth or userData are not valid!");
-        } else if (this.service.isUserFromHeaderValid(userData)) {
-            throw new NotRequiredUserException("User not found or user's password is incorrect!");
         } else {
-            List<TaskEntity> listOfTasks = this.service.getTasksList(userData.get(0));
-            StringBuilder response = new StringBuilder("[");
-
-            for (TaskEntity listOfTask : listOfTasks) {
-                response.append("{\"id\":\"").append(listOfTask.getId()).append("\",");
-                response.append("\"description\":\"").append(listOfTask.getDescription()).append("\"");
-                if (listOfTask.getDue() != null)
-                    response.append(",").append("\"due\":\"").append(listOfTask.getDue()).append("\"");
-                response.append("}");
-                response.append(",");
+            Map<String, String> parameters = QueryParameters.parse(
+                    context.getExchange().getRequestURI().getRawQuery());
+            if (parameters.containsKey(SINCE_PARAMETER)) {
+                long since = parseSince(parameters);
+                verifyUser(context);
+                changesHandle(context, since);
+                return;
+            }
+            TaskQuery query = parseTaskQuery(parameters);
+            verifyUser(context);
+            boolean cacheable = query == TaskQuery.ALL;
+            long sequence = cacheable ? service.getSyncSequence(context.getUsername()) : 0;
+            long version = service.getTasksVersion(context.getUsername());
+            String etag = etag(version);
+            HttpExchange exchange = context.getExchange();
+            if (isNotModified(exchange, etag)) {
+                sendNotModified(exchange, etag);
+                return;
+            }
+            exchange.getResponseHeaders().set(ETAG_HEADER, etag);
+            if (cacheable) {
+                exchange.getResponseHeaders().set(SEQUENCE_HEADER, Long.toString(sequence));
+                sendAllTasks(exchange, context.getUsername(), version);
+                return;
+            }
+            TaskPage page = this.service.getTasksPage(context.getUsername(), query);
+            if (page.getNextCursor() != null) {
+                exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            try (Span span = Tracing.span("HttpTaskHandler.writeResponse")) {
+                exchange.sendResponseHeaders(OK.getResponseCode(), 0);
+                TaskJsonWriter.writeTasks(exchange.getResponseBody(), page.getTasks());
             }
-            response.deleteCharAt(response.length() - 1);
-            response.append("]");
-            return response.toString();
         }
     }
 
-    public String getWithIdHandle(HttpExchange exchange) throws NotRequiredUserException,
-            BadRequestException, TaskNotFoundException, NotRightsToTaskException {
-        String path = exchange.getRequestURI().toString();
-        List<String> userData = handleTaskHeader(auth);
-        String id = path.split("/")[3];
-        if (userData.isEmpty()) {
-            throw new BadRequestException("User Data is empty!");
-        } else if (this.service.isUserFromHeaderValid(userData)) {
-            throw new NotRequiredUserException("User not found or user's password is incorrect!");
-        } else {
-            List<TaskEntity> listOfTasks = this.service.getTasksList(userData.get(0));
-            TaskEntity task = service.getTask(id);
+    /**
+     * Responds with all tasks of the user, from the cache or encoded for it when the list is small enough, otherwise
+     * streamed from the owner index without building a list of them.
+     */
+    private void sendAllTasks(HttpExchange exchange, String username, long version) throws IOException {
+        byte[] body = service.getCachedTasksList(username, version);
+        if (body == null && service.isTasksListCacheable(service.getTasksCount(username))) {
+            body = TaskJsonWriter.tasksToBytes(service.getTasks(username), service.getTasksCount(username));
+            service.cacheTasksList(username, version, body);
+        }
+        if (body != null) {
+            sendResponse(exchange, OK, body);
+            return;
+        }
+        try (Span span = Tracing.span("HttpTaskHandler.writeResponse")) {
+            exchange.sendResponseHeaders(OK.getResponseCode(), 0);
+            TaskJsonWriter.writeTasks(exchange.getResponseBody(), service.getTasks(username));
+        }
+    }
 
-            if (task == null) {
-                throw new TaskNotFoundException("Task doesn't exists!");
-            }
+    /**
+     * Applies a batch of task operations after authenticating once. Responds with the status of every operation,
+     * and with <code>409</code> instead of <code>200</code> if an atomic batch has not been applied.
+     */
+    public void batchHandle(RequestContext context) throws NotRequiredUserException, BadRequestException,
+            ServiceUnavailableException, IOException {
+        BatchRequest request;
+        try (Span span = Tracing.span("HttpTaskHandler.readBody")) {
+            request = RequestBodyReader.readBatch(requestBody(context, RequestBodyReader.MAX_BATCH_BODY_BYTES));
+        }
 
-            if (!listOfTasks.contains(task)) {
-                throw new NotRightsToTaskException("You haven't got rights to this task!");
-            }
-            String response = "" + "{\"id\":\"" + task.getId() + "\"," +
-                    "\"description\":\"" + task.getDescription() + "\"";
-            if (task.getDue() != null) {
-                response += ",\"due\":\"" + task.getDue() + "\"";
-            }
-            response += "}";
+        if (!hasCredentials(context) || request == null || request.getOperations() == null
+                || request.getOperations().isEmpty() || request.getOperations().size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Auth or batch are not valid!");
+        }
+        verifyUser(context);
+        List<BatchResult> results = service.applyBatch(request.getOperations(), context.getUsername(),
+                request.isAtomic());
+        boolean rejected = request.isAtomic() && results.stream().anyMatch(result -> !result.isApplied());
+        sendResponse(context.getExchange(), rejected ? CONFLICT : OK, TaskJsonWriter.batchResultsToBytes(results));
+    }
+
+    private void changesHandle(RequestContext context, long since) throws ChangesExpiredException, IOException {
+        TaskChanges changes = service.getTaskChanges(context.getUsername(), since);
+        HttpExchange exchange = context.getExchange();
+        exchange.getResponseHeaders().set(SEQUENCE_HEADER, Long.toString(changes.getSequence()));
+        sendResponse(exchange, OK, TaskJsonWriter.changesToBytes(changes));
+    }
+
+    private static long parseSince(Map<String, String> parameters) throws BadRequestException {
+        if (parameters.size() > 1) {
+            throw new BadRequestException("Parameter since cannot be combined with other parameters");
+        }
+        try {
+            return Long.parseLong(parameters.get(SINCE_PARAMETER));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
 
-            return response;
+    private static TaskQuery parseTaskQuery(Map<String, String> parameters) throws BadRequestException {
+        String limit = parameters.get("limit");
+        String cursor = parameters.get("cursor");
+        String dueAfter = parameters.get("dueAfter");
+        String dueBefore = parameters.get("dueBefore");
+        if (limit == null && cursor == null && dueAfter == null && dueBefore == null) {
+            return TaskQuery.ALL;
+        }
+        try {
+            int pageSize = limit == null ? MAX_PAGE_SIZE : Integer.parseInt(limit);
+            if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+                throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            return new TaskQuery(cursor, pageSize, parseDate(dueAfter), parseDate(dueBefore));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new BadRequestException(e.getMessage());
         }
     }
 
-    public String putHandle(HttpExchange exchange) throws IOException, BadRequestException,
-            NotRequiredUserException, TaskNotFoundException, NotRightsToTaskException {
-        String path = exchange.getRequestURI().toString();
-        String requestBody = new String(exchange.getRequestBody().readAllBytes());
-        List<String> userData = handleTaskHeader(auth);
-        TaskEntity task = gson.fromJson(requestBody, TaskEntity.class);
-        String id = path.split("/")[3];
+    private static LocalDate parseDate(String date) {
+        return date == null ? null : LocalDate.from(DateTimeFormatter.ISO_DATE.parse(date));
+    }
 
-        if (userData.isEmpty() || service.isTaskValid(task)) {
+    /**
+     * Responds with the task, or with <code>304</code> if the <code>If-None-Match</code> header holds the current
+     * <code>ETag</code> and the task still belongs to the user.
+     */
+    public void getWithIdHandle(RequestContext context) throws NotRequiredUserException,
+            BadRequestException, TaskNotFoundException, NotRightsToTaskException, ServiceUnavailableException,
+            IOException {
+        if (!hasCredentials(context)) {
             throw new BadRequestException("User Data is empty!");
-        } else if (this.service.isUserFromHeaderValid(userData)) {
-            throw new NotRequiredUserException("User not found or user's password is incorrect!");
         } else {
-            List<TaskEntity> listOfTasks = this.service.getTasksList(userData.get(0));
-            TaskEntity oldTask = service.getTask(id);
-
-            if (oldTask == null) {
-                throw new TaskNotFoundException("Task doesn't exists!");
+            verifyUser(context);
+            String etag = etag(service.getTasksVersion(context.getUsername()));
+            HttpExchange exchange = context.getExchange();
+            if (isNotModified(exchange, etag) && service.isTaskOwnedBy(context.getTaskId(), context.getUsername())) {
+                sendNotModified(exchange, etag);
+                return;
             }
+            TaskEntity task = service.getOwnedTask(context.getTaskId(), context.getUsername());
+            exchange.getResponseHeaders().set(ETAG_HEADER, etag);
+            sendResponse(exchange, OK, TaskJsonWriter.toBytes(task));
+        }
+    }
 
-            if (!listOfTasks.contains(oldTask)) {
-                throw new NotRightsToTaskException("You haven't got rights to this task!");
+    /**
+     * Subscribes the exchange to the user's task events, it stays open after the handler returns.
+     */
+    public void eventsHandle(RequestContext context) throws NotRequiredUserException, BadRequestException,
+            ServiceUnavailableException, IOException {
+        if (!hasCredentials(context)) {
+            throw new BadRequestException("User Data is empty!");
+        } else {
+            verifyUser(context);
+            if (!events.open(context.getExchange(), context.getUsername())) {
+                throw new ServiceUnavailableException("Too many event streams open");
             }
+        }
+    }
 
-            TaskEntity newTask = service.updateTask(task, userData, UUID.fromString(id));
+    public byte[] putHandle(RequestContext context) throws IOException, BadRequestException,
+            NotRequiredUserException, TaskNotFoundException, NotRightsToTaskException, ServiceUnavailableException {
+        TaskEntity task;
+        try (Span span = Tracing.span("HttpTaskHandler.readBody")) {
+            task = RequestBodyReader.readTask(requestBody(context, RequestBodyReader.MAX_BODY_BYTES));
+        }
 
-            String response = "" + "{\"id\":\"" + newTask.getId() + "\"," +
-                    "\"description\":\"" + newTask.getDescription() + "\"";
-            if (newTask.getDue() != null) {
-                response += ",\"due\":\"" + newTask.getDue() + "\"";
-            }
-            response += "}";
-            return response;
+        if (!hasCredentials(context) || service.isTaskValid(task)) {
+            throw new BadRequestException("User Data is empty!");
+        } else {
+            verifyUser(context);
+            TaskEntity newTask = service.updateTask(task, context.getUsername(), context.getTaskId());
+            return TaskJsonWriter.toBytes(newTask);
         }
     }
 
-    public void deleteHandle(HttpExchange exchange) throws BadRequestException,
-            NotRequiredUserException, TaskNotFoundException, NotRightsToTaskException {
-        String path = exchange.getRequestURI().toString();
-        List<String> userData = handleTaskHeader(auth);
-        String id = path.split("/")[3];
-        if (userData.isEmpty()) {
+    public void deleteHandle(RequestContext context) throws BadRequestException,
+            NotRequiredUserException, TaskNotFoundException, NotRightsToTaskException, ServiceUnavailableException {
+        if (!hasCredentials(context)) {
             throw new BadRequestException("User Data is empty!");
-        } else if (this.service.isUserFromHeaderValid(userData)) {
-            throw new NotRequiredUserException("User not found or user's password is incorrect!");
         } else {
-            List<TaskEntity> listOfTasks = this.service.getTasksList(userData.get(0));
-            TaskEntity task = service.getTask(id);
+            verifyUser(context);
+            service.deleteTask(context.getTaskId(), context.getUsername());
+        }
+    }
 
-            if (task == null) {
-                throw new TaskNotFoundException("Task doesn't exists!");
+    private static InputStream requestBody(RequestContext context, int limit) throws PayloadTooLargeException {
+        HttpExchange exchange = context.getExchange();
+        RequestBodyReader.checkContentLength(exchange.getRequestHeaders(), limit);
+        return exchange.getRequestBody();
+    }
+
+    /**
+     * Tags are quoted versions of the user's tasks, prefixed with a value chosen when the handler is created, so tags
+     * of another server run never match.
+     */
+    private String etag(long version) {
+        return etagPrefix + version + '"';
+    }
+
+    private static boolean isNotModified(HttpExchange exchange, String etag) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst(IF_NONE_MATCH_HEADER);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
             }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            if (!listOfTasks.contains(task)) {
-                throw new NotRightsToTaskException("You haven't got rights to this task!");
+    private static void sendNotModified(HttpExchange exchange, String etag) throws IOException {
+        // a response without body ends the exchange at once, the server keeps the connection only if the request
+        // body was read to its end
+        exchange.getRequestBody().close();
+        exchange.getResponseHeaders().set(ETAG_HEADER, etag);
+        exchange.sendResponseHeaders(NOT_MODIFIED.getResponseCode(), -1);
+    }
+
+    private static void sendResponse(HttpExchange exchange, ResponseCodes code, byte[] body) throws IOException {
+        try (Span span = Tracing.span("HttpTaskHandler.writeResponse")) {
+            exchange.sendResponseHeaders(code.getResponseCode(), body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
             }
+        }
+    }
 
-            service.deleteTask(UUID.fromString(id));
+    /**
+     * Resolves the <code>auth</code> header, skipping decoding if its value has already been verified.
+     *
+     * @return <code>false</code> if the header is missing or malformed
+     */
+    private boolean hasCredentials(RequestContext context) {
+        if (context.getUsername() == null && context.getUserData() == null) {
+            String username = service.getVerifiedUser(context.getAuth());
+            if (username != null) {
+                context.setUsername(username);
+            } else {
+                try (Span span = Tracing.span("HttpTaskHandler.handleTaskHeader")) {
+                    context.setUserData(handleTaskHeader(context.getAuth()));
+                }
+            }
+        }
+        return context.getUsername() != null || !context.getUserData().isEmpty();
+    }
 
+    private void verifyUser(RequestContext context) throws NotRequiredUserException, BadRequestException,
+            ServiceUnavailableException {
+        if (context.getUsername() == null) {
+            context.setUsername(service.verifyUser(context.getAuth(), context.getUserData()));
         }
     }
 
@@ -244,7 +427,7 @@ public class HttpTaskHandler implements HttpHandler {
                 } else {
 
                     for (String s : userData) {
-                        if (s == null || !s.matches(base64Pattern)) {
+                        if (s == null || !base64Pattern.matcher(s).matches()) {
                             return Collections.emptyList();
                         }
 
@@ -1,6 +1,5 @@
 package efs.task.todoapp.web;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -8,12 +7,17 @@ import efs.task.todoapp.ToDoApplication;
 import efs.task.todoapp.repository.UserEntity;
 import efs.task.todoapp.service.exceptions.BadRequestException;
 import efs.task.todoapp.service.ToDoService;
+import efs.task.todoapp.service.exceptions.ServiceUnavailableException;
 import efs.task.todoapp.service.exceptions.UserExistsException;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracing;
 import static efs.task.todoapp.web.ResponseCodes.*;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.logging.Logger;
 
 
+@SuppressWarnings("try")
 public class HttpUserHandler implements HttpHandler {
     private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
     private final ToDoService service;
@@ -24,16 +28,32 @@ public class HttpUserHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        Gson gson = new Gson();
         try {
-            String responseBody = new String(exchange.getRequestBody().readAllBytes());
-            UserEntity user = gson.fromJson(responseBody, UserEntity.class);
+            RequestBodyReader.checkContentLength(exchange.getRequestHeaders(), RequestBodyReader.MAX_BODY_BYTES);
+            UserEntity user;
+            try (Span span = Tracing.span("HttpUserHandler.readBody")) {
+                user = RequestBodyReader.readUser(exchange.getRequestBody());
+            }
             service.saveUser(user);
             exchange.sendResponseHeaders(CREATED.getResponseCode(), 0);
+        } catch (PayloadTooLargeException e) {
+            if (!RequestBodyReader.discard(exchange.getRequestBody(), RequestBodyReader.MAX_DISCARDED_BYTES)) {
+                // a larger remainder is not worth reading, the connection is closed after the response
+                exchange.getResponseHeaders().set("Connection", "close");
+            }
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getResponseCode(), 0);
         } catch (JsonSyntaxException | IllegalArgumentException | IOException | BadRequestException e) {
             exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), 0);
         } catch (UserExistsException e) {
             exchange.sendResponseHeaders(CONFLICT.getResponseCode(), 0);
+        } catch (ServiceUnavailableException e) {
+            exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getResponseCode(), 0);
+        } catch (UncheckedIOException e) {
+            LOGGER.severe("Storing data failed: " + e.getMessage());
+            exchange.sendResponseHeaders(INTERNAL_SERVER_ERROR.getResponseCode(), 0);
+        } catch (IllegalStateException e) {
+            LOGGER.severe("Request failed: " + e.getMessage());
+            exchange.sendResponseHeaders(INTERNAL_SERVER_ERROR.getResponseCode(), 0);
         } catch (Exception e) {
             LOGGER.warning("Unhandled exception");
         }
@@ -0,0 +1,40 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.function.BiFunction;
+
+/**
+ * Records the latency and response status of every exchange of a context. Installed before {@link OverloadFilter}, so
+ * rejected requests are counted as well.
+ */
+public class MetricsFilter extends Filter {
+    private final RequestMetrics metrics;
+    private final BiFunction<String, String, Endpoint> endpoints;
+
+    /**
+     * @param endpoints resolves the endpoint from the request method and path without allocating
+     */
+    public MetricsFilter(RequestMetrics metrics, BiFunction<String, String, Endpoint> endpoints) {
+        this.metrics = metrics;
+        this.endpoints = endpoints;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            Endpoint endpoint = endpoints.apply(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath());
+            metrics.record(endpoint, exchange.getResponseCode(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Records request latency by endpoint and response status";
+    }
+}
@@ -0,0 +1,47 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static efs.task.todoapp.web.ResponseCodes.BAD_REQUEST;
+import static efs.task.todoapp.web.ResponseCodes.OK;
+
+/**
+ * Serves <code>GET /metrics</code> in the Prometheus text format.
+ */
+public class MetricsHandler implements HttpHandler {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private final RequestMetrics metrics;
+
+    public MetricsHandler(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") || !exchange.getRequestURI().getPath().equals("/metrics")) {
+                exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), -1);
+                return;
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+            try (Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8)) {
+                metrics.write(writer);
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(OK.getResponseCode(), body.size());
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                body.writeTo(responseBody);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
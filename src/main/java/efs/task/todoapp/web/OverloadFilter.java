@@ -0,0 +1,30 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+import static efs.task.todoapp.web.ResponseCodes.SERVICE_UNAVAILABLE;
+
+public class OverloadFilter extends Filter {
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (BoundedExecutor.isOverloaded()) {
+            try {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getResponseCode(), -1);
+            } finally {
+                exchange.close();
+            }
+        } else {
+            chain.doFilter(exchange);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Rejects requests with 503 when the executor is saturated";
+    }
+}
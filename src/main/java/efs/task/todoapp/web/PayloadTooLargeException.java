@@ -0,0 +1,12 @@
+package efs.task.todoapp.web;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request body is longer than accepted, answered with <code>413</code>.
+ */
+public class PayloadTooLargeException extends IOException {
+    public PayloadTooLargeException() {
+        super("Request body is too large");
+    }
+}
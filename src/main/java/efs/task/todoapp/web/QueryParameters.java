@@ -0,0 +1,46 @@
+package efs.task.todoapp.web;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+final class QueryParameters {
+
+    private QueryParameters() {
+    }
+
+    /**
+     * Parses raw query string of a request. For a repeated parameter the first value wins.
+     *
+     * @param rawQuery query string as returned by <code>URI.getRawQuery()</code>, may be <code>null</code>
+     * @return decoded parameters
+     */
+    static Map<String, String> parse(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        int start = 0;
+        while (start <= rawQuery.length()) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = rawQuery.length();
+            }
+            if (end > start) {
+                int separator = rawQuery.indexOf('=', start);
+                if (separator < 0 || separator > end) {
+                    separator = end;
+                }
+                String name = URLDecoder.decode(rawQuery.substring(start, separator), StandardCharsets.UTF_8);
+                String value = separator < end
+                        ? URLDecoder.decode(rawQuery.substring(separator + 1, end), StandardCharsets.UTF_8)
+                        : "";
+                parameters.putIfAbsent(name, value);
+            }
+            start = end + 1;
+        }
+        return parameters;
+    }
+}
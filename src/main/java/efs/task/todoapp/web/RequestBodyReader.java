@@ -0,0 +1,309 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.sun.net.httpserver.Headers;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Reads request bodies as UTF-8 JSON straight from the request stream into entities, without buffering the whole
+ * body. A body longer than the limit fails with {@link PayloadTooLargeException} as soon as the limit is crossed.
+ * <p>
+ * Like <code>Gson.fromJson</code>, parsing is lenient, unknown fields are skipped and an empty or <code>null</code>
+ * body yields <code>null</code>.
+ */
+public final class RequestBodyReader {
+    public static final int MAX_BODY_BYTES = 64 * 1024;
+    public static final int MAX_BATCH_BODY_BYTES = 4 * 1024 * 1024;
+    static final int MAX_DISCARDED_BYTES = 128 * 1024;
+    private static final int BUFFER_BYTES = 512;
+    private static final char REPLACEMENT = '\uFFFD';
+    private static final Gson gson = new Gson();
+
+    private RequestBodyReader() {
+    }
+
+    public static TaskEntity readTask(InputStream body) throws IOException {
+        try (JsonReader reader = open(body, MAX_BODY_BYTES)) {
+            if (!beginDocument(reader)) {
+                return null;
+            }
+            String description = null;
+            String due = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "description":
+                        description = nextString(reader);
+                        break;
+                    case "due":
+                        due = nextString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            endDocument(reader);
+            return new TaskEntity(description, due);
+        } catch (IllegalStateException | MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    public static UserEntity readUser(InputStream body) throws IOException {
+        try (JsonReader reader = open(body, MAX_BODY_BYTES)) {
+            if (!beginDocument(reader)) {
+                return null;
+            }
+            String username = null;
+            String password = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "username":
+                        username = nextString(reader);
+                        break;
+                    case "password":
+                        password = nextString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            endDocument(reader);
+            return new UserEntity(username, password);
+        } catch (IllegalStateException | MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    static BatchRequest readBatch(InputStream body) throws IOException {
+        try (JsonReader reader = open(body, MAX_BATCH_BODY_BYTES)) {
+            if (!beginDocument(reader)) {
+                return null;
+            }
+            BatchRequest request = gson.fromJson(reader, BatchRequest.class);
+            endDocument(reader);
+            return request;
+        } catch (IllegalStateException | MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Rejects a request up front if its declared <code>Content-Length</code> exceeds the limit.
+     */
+    static void checkContentLength(Headers headers, int limit) throws PayloadTooLargeException {
+        String contentLength = headers.getFirst("Content-length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > limit) {
+                    throw new PayloadTooLargeException();
+                }
+            } catch (NumberFormatException e) {
+                // the limit is still enforced while reading
+            }
+        }
+    }
+
+    /**
+     * Skips what is left of a rejected body, at most <code>limit</code> bytes. The server closes a connection with an
+     * unread body, and a client still sending it may then see a reset instead of the response.
+     *
+     * @return <code>true</code> if the body has been read to its end
+     */
+    static boolean discard(InputStream body, long limit) {
+        byte[] buffer = new byte[BUFFER_BYTES];
+        try {
+            // skip() of the exchange stream bypasses the content length, so the body is read instead
+            long discarded = 0;
+            int n;
+            while (discarded < limit) {
+                if ((n = body.read(buffer)) < 0) {
+                    return true;
+                }
+                discarded += n;
+            }
+        } catch (IOException e) {
+            // the connection is closed anyway
+        }
+        return false;
+    }
+
+    private static JsonReader open(InputStream body, int limit) {
+        JsonReader reader = new JsonReader(new Utf8Reader(body, limit));
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * @return <code>false</code> if the body is empty or <code>null</code>
+     */
+    private static boolean beginDocument(JsonReader reader) throws IOException {
+        try {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                endDocument(reader);
+                return false;
+            }
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static void endDocument(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("JSON document was not fully consumed.");
+        }
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(reader.nextBoolean());
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /**
+     * Decodes UTF-8 with a small buffer, replacing malformed input like <code>new String(bytes, UTF_8)</code>, and
+     * fails once more than the limit of bytes has been read.
+     */
+    private static final class Utf8Reader extends Reader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+        private int position;
+        private int end;
+        private long remaining;
+        private char pendingLowSurrogate;
+
+        private Utf8Reader(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int count = 0;
+            if (pendingLowSurrogate != 0) {
+                chars[offset + count++] = pendingLowSurrogate;
+                pendingLowSurrogate = 0;
+            }
+            while (count < length) {
+                if (end - position < 4 && !fill()) {
+                    if (position == end) {
+                        break;
+                    }
+                }
+                int b = buffer[position];
+                if (b >= 0) {
+                    position++;
+                    chars[offset + count++] = (char) b;
+                    continue;
+                }
+                int codePoint = decode();
+                if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    chars[offset + count++] = (char) codePoint;
+                } else {
+                    chars[offset + count++] = Character.highSurrogate(codePoint);
+                    if (count < length) {
+                        chars[offset + count++] = Character.lowSurrogate(codePoint);
+                    } else {
+                        pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                    }
+                }
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        /**
+         * Decodes the multi-byte sequence at the position, consuming only its valid prefix if it is malformed.
+         */
+        private int decode() {
+            int lead = buffer[position++] & 0xFF;
+            int continuation;
+            int codePoint;
+            int secondMin = 0x80;
+            int secondMax = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                continuation = 1;
+                codePoint = lead & 0x1F;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                continuation = 2;
+                codePoint = lead & 0x0F;
+                if (lead == 0xE0) {
+                    secondMin = 0xA0;
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                continuation = 3;
+                codePoint = lead & 0x07;
+                if (lead == 0xF0) {
+                    secondMin = 0x90;
+                } else if (lead == 0xF4) {
+                    secondMax = 0x8F;
+                }
+            } else {
+                return REPLACEMENT;
+            }
+            for (int i = 0; i < continuation; i++) {
+                int next = position == end ? -1 : buffer[position] & 0xFF;
+                if (next < (i == 0 ? secondMin : 0x80) || next > (i == 0 ? secondMax : 0xBF)) {
+                    return REPLACEMENT;
+                }
+                codePoint = codePoint << 6 | next & 0x3F;
+                position++;
+            }
+            return codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE ? REPLACEMENT : codePoint;
+        }
+
+        /**
+         * Moves the unread bytes to the start of the buffer and reads more behind them.
+         *
+         * @return <code>false</code> if the stream has ended
+         */
+        private boolean fill() throws IOException {
+            int unread = end - position;
+            System.arraycopy(buffer, position, buffer, 0, unread);
+            position = 0;
+            end = unread;
+            while (end < buffer.length) {
+                int read = in.read(buffer, end, (int) Math.min(buffer.length - end, remaining + 1));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+                if (remaining < 0) {
+                    throw new PayloadTooLargeException();
+                }
+                end += read;
+                if (end - position >= 4) {
+                    return true;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.List;
+
+/**
+ * State of a single request to {@link HttpTaskHandler}. A context is created for every exchange and confined to
+ * the thread handling it, so the shared handler instance keeps no per-request state.
+ */
+public class RequestContext {
+    private final HttpExchange exchange;
+    private final Route route;
+    private final String auth;
+    private List<String> userData;
+    private String username;
+
+    public RequestContext(HttpExchange exchange, Route route, String auth) {
+        this.exchange = exchange;
+        this.route = route;
+        this.auth = auth;
+    }
+
+    public HttpExchange getExchange() {
+        return exchange;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    /**
+     * @return raw value of the <code>auth</code> header, <code>null</code> if the header is missing
+     */
+    public String getAuth() {
+        return auth;
+    }
+
+    /**
+     * @return decoded username and password from the <code>auth</code> header, empty if the header is not valid,
+     * <code>null</code> if the header has not been decoded
+     */
+    public List<String> getUserData() {
+        return userData;
+    }
+
+    public void setUserData(List<String> userData) {
+        this.userData = userData;
+    }
+
+    /**
+     * @return identifier of the task from the request path, <code>null</code> for requests to the task collection
+     */
+    public String getTaskId() {
+        return route.getTaskId();
+    }
+
+    /**
+     * @return username of the verified user, <code>null</code> until the user has been verified
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+}
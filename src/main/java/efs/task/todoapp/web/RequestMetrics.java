@@ -0,0 +1,150 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.TaskListCache;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Request latency histograms per endpoint and response status, and gauges read when the metrics are scraped. Every
+ * histogram is created up front, so recording a request only increments striped counters. The count of requests is
+ * the <code>_count</code> sample of the histograms.
+ */
+public class RequestMetrics {
+    private static final long[] LATENCY_BOUNDS = {
+            micros(500), millis(1), millis(2), millis(5), millis(10), millis(25), millis(50), millis(100),
+            millis(250), millis(500), millis(1000), millis(2500), millis(5000), millis(10000)};
+    private static final long[] TASKS_PER_USER_BOUNDS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000, 100000};
+    private static final ResponseCodes[] STATUSES = ResponseCodes.values();
+    private static final int OTHER_STATUS = STATUSES.length;
+    private static final String REQUEST_DURATION = "todo_http_request_duration_seconds";
+
+    private final Histogram[][] latencies;
+    private final List<Gauge> gauges = new ArrayList<>();
+    private TaskRepository taskRepository;
+
+    public RequestMetrics() {
+        Endpoint[] endpoints = Endpoint.values();
+        latencies = new Histogram[endpoints.length][STATUSES.length + 1];
+        for (Histogram[] byStatus : latencies) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new Histogram(LATENCY_BOUNDS, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * @param status response status, or anything else if no response was sent
+     */
+    public void record(Endpoint endpoint, int status, long nanos) {
+        latencies[endpoint.ordinal()][statusIndex(status)].record(nanos);
+    }
+
+    public synchronized void registerRepositories(UserRepository userRepository, TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+        gauges.add(new Gauge("todo_users", "Number of registered users.", userRepository::size));
+        gauges.add(new Gauge("todo_tasks", "Number of stored tasks.", taskRepository::size));
+    }
+
+    public synchronized void registerExecutor(BoundedExecutor executor) {
+        gauges.add(new Gauge("todo_executor_in_flight", "Requests queued or running on the executor.",
+                executor::getInFlight));
+        gauges.add(new Gauge("todo_executor_queued", "Requests waiting for a worker.", executor::getQueued));
+    }
+
+    public synchronized void registerTaskListCache(TaskListCache cache) {
+        gauges.add(new Gauge("todo_task_list_cache_hits_total", "Task lists answered from the cache.", "counter",
+                cache::getHits));
+        gauges.add(new Gauge("todo_task_list_cache_misses_total", "Task lists not found in the cache.", "counter",
+                cache::getMisses));
+        gauges.add(new Gauge("todo_task_list_cache_evictions_total",
+                "Task lists evicted from the cache to stay within its size.", "counter", cache::getEvictions));
+        gauges.add(new Gauge("todo_task_list_cache_entries", "Task lists in the cache.", cache::size));
+        gauges.add(new Gauge("todo_task_list_cache_bytes", "Estimated heap taken by the cached task lists.",
+                cache::getBytes));
+    }
+
+    public synchronized void registerTaskEvents(TaskEventStream events) {
+        gauges.add(new Gauge("todo_task_event_streams", "Open task event streams.", events::size));
+        gauges.add(new Gauge("todo_task_event_streams_dropped_total",
+                "Task event streams closed because their client did not keep up.", "counter", events::getDropped));
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     */
+    public synchronized void write(Writer out) throws IOException {
+        out.write("# HELP " + REQUEST_DURATION + " Time to handle a request by endpoint and response status.\n");
+        out.write("# TYPE " + REQUEST_DURATION + " histogram\n");
+        Endpoint[] endpoints = Endpoint.values();
+        for (int endpoint = 0; endpoint < endpoints.length; endpoint++) {
+            for (int status = 0; status <= STATUSES.length; status++) {
+                Histogram histogram = latencies[endpoint][status];
+                if (histogram.count() > 0) {
+                    String statusLabel = status == OTHER_STATUS
+                            ? "other"
+                            : String.valueOf(STATUSES[status].getResponseCode());
+                    histogram.write(out, REQUEST_DURATION, "endpoint=\""
+                            + endpoints[endpoint].name().toLowerCase(Locale.ROOT) + "\",status=\"" + statusLabel + "\"");
+                }
+            }
+        }
+        for (Gauge gauge : gauges) {
+            out.write("# HELP " + gauge.name + " " + gauge.help + "\n");
+            out.write("# TYPE " + gauge.name + " " + gauge.type + "\n");
+            out.write(gauge.name + " " + gauge.value.getAsLong() + "\n");
+        }
+        if (taskRepository != null) {
+            Histogram tasksPerUser = new Histogram(TASKS_PER_USER_BOUNDS, 1);
+            taskRepository.forEachOwnerTaskCount(tasksPerUser::record);
+            out.write("# HELP todo_tasks_per_user Distribution of the number of tasks of users having tasks.\n");
+            out.write("# TYPE todo_tasks_per_user histogram\n");
+            tasksPerUser.write(out, "todo_tasks_per_user", "");
+        }
+    }
+
+    private static int statusIndex(int status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].getResponseCode() == status) {
+                return i;
+            }
+        }
+        return OTHER_STATUS;
+    }
+
+    private static long micros(long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static final class Gauge {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final LongSupplier value;
+
+        private Gauge(String name, String help, LongSupplier value) {
+            this(name, help, "gauge", value);
+        }
+
+        /**
+         * @param type <code>gauge</code>, or <code>counter</code> for a value which only grows
+         */
+        private Gauge(String name, String help, String type, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
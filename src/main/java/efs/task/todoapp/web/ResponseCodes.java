@@ -1,13 +1,20 @@
 package efs.task.todoapp.web;
 
+import efs.task.todoapp.service.BatchResult;
+
 public enum ResponseCodes {
     OK(200),
     CREATED(201),
+    NOT_MODIFIED(304),
     BAD_REQUEST(400),
     UNAUTHORIZED(401),
     FORBIDDEN(403),
     NOT_FOUND(404),
-    CONFLICT(409);
+    CONFLICT(409),
+    GONE(410),
+    PAYLOAD_TOO_LARGE(413),
+    INTERNAL_SERVER_ERROR(500),
+    SERVICE_UNAVAILABLE(503);
 
     private final int responseCode;
 
@@ -18,4 +25,22 @@ public enum ResponseCodes {
     public int getResponseCode() {
         return responseCode;
     }
+
+    static ResponseCodes of(BatchResult.Outcome outcome) {
+        switch (outcome) {
+            case CREATED:
+                return CREATED;
+            case UPDATED:
+            case DELETED:
+                return OK;
+            case NOT_FOUND:
+                return NOT_FOUND;
+            case FORBIDDEN:
+                return FORBIDDEN;
+            case NOT_APPLIED:
+                return CONFLICT;
+            default:
+                return BAD_REQUEST;
+        }
+    }
 }
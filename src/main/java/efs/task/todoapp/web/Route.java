@@ -0,0 +1,31 @@
+package efs.task.todoapp.web;
+
+/**
+ * Result of matching a request against the task endpoints.
+ */
+public final class Route {
+    static final Route UNKNOWN = new Route(Endpoint.UNKNOWN, null);
+    static final Route CREATE_TASK = new Route(Endpoint.CREATE_TASK, null);
+    static final Route LIST_TASKS = new Route(Endpoint.LIST_TASKS, null);
+    static final Route BATCH_TASKS = new Route(Endpoint.BATCH_TASKS, null);
+    static final Route TASK_EVENTS = new Route(Endpoint.TASK_EVENTS, null);
+
+    private final Endpoint endpoint;
+    private final String taskId;
+
+    Route(Endpoint endpoint, String taskId) {
+        this.endpoint = endpoint;
+        this.taskId = taskId;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return value of the <code>{id}</code> path parameter, <code>null</code> if the endpoint has none
+     */
+    public String getTaskId() {
+        return taskId;
+    }
+}
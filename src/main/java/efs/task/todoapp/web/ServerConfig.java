@@ -0,0 +1,114 @@
+package efs.task.todoapp.web;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class ServerConfig {
+    public enum ExecutorMode {
+        FIXED,
+        WORK_STEALING,
+        VIRTUAL
+    }
+
+    public enum TaskStoreMode {
+        HEAP,
+        COMPACT,
+        MAPPED
+    }
+
+    private final ExecutorMode executorMode;
+    private final int threads;
+    private final int queueDepth;
+    private final Path dataDirectory;
+    private final long snapshotIntervalSeconds;
+    private final TaskStoreMode taskStoreMode;
+    private final long tombstoneRetentionSeconds;
+
+    public ServerConfig(ExecutorMode executorMode, int threads, int queueDepth) {
+        this(executorMode, threads, queueDepth, null);
+    }
+
+    public ServerConfig(ExecutorMode executorMode, int threads, int queueDepth, Path dataDirectory) {
+        this(executorMode, threads, queueDepth, dataDirectory, 300);
+    }
+
+    public ServerConfig(ExecutorMode executorMode, int threads, int queueDepth, Path dataDirectory,
+                        long snapshotIntervalSeconds) {
+        this(executorMode, threads, queueDepth, dataDirectory, snapshotIntervalSeconds, TaskStoreMode.HEAP);
+    }
+
+    public ServerConfig(ExecutorMode executorMode, int threads, int queueDepth, Path dataDirectory,
+                        long snapshotIntervalSeconds, TaskStoreMode taskStoreMode) {
+        this(executorMode, threads, queueDepth, dataDirectory, snapshotIntervalSeconds, taskStoreMode, 86_400);
+    }
+
+    public ServerConfig(ExecutorMode executorMode, int threads, int queueDepth, Path dataDirectory,
+                        long snapshotIntervalSeconds, TaskStoreMode taskStoreMode, long tombstoneRetentionSeconds) {
+        if (threads <= 0 || queueDepth < 0) {
+            throw new IllegalArgumentException("Executor threads must be positive and queue depth not negative");
+        }
+        this.executorMode = executorMode;
+        this.threads = threads;
+        this.queueDepth = queueDepth;
+        this.dataDirectory = dataDirectory;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.taskStoreMode = taskStoreMode;
+        this.tombstoneRetentionSeconds = tombstoneRetentionSeconds;
+    }
+
+    /**
+     * Reads the configuration from <code>todo.*</code> system properties, falling back to defaults.
+     *
+     * @return configuration of the server
+     */
+    public static ServerConfig fromSystemProperties() {
+        String mode = System.getProperty("todo.executor.mode", ExecutorMode.FIXED.name());
+        int threads = Integer.getInteger("todo.executor.threads", Runtime.getRuntime().availableProcessors() * 2);
+        int queueDepth = Integer.getInteger("todo.executor.queue", 1024);
+        String dataDirectory = System.getProperty("todo.data.dir");
+        long snapshotInterval = Long.getLong("todo.snapshot.interval", 300);
+        String taskStore = System.getProperty("todo.task.store", TaskStoreMode.HEAP.name());
+        long tombstoneRetention = Long.getLong("todo.sync.retention", 86_400);
+        return new ServerConfig(ExecutorMode.valueOf(mode.trim().toUpperCase().replace('-', '_')), threads,
+                queueDepth, dataDirectory == null || dataDirectory.isBlank() ? null : Paths.get(dataDirectory),
+                snapshotInterval, TaskStoreMode.valueOf(taskStore.trim().toUpperCase()), tombstoneRetention);
+    }
+
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return directory of the persisted data, <code>null</code> if data is kept only in memory
+     */
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+
+    /**
+     * @return seconds between snapshots of the persisted data, not positive if snapshots are disabled
+     */
+    public long getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    public TaskStoreMode getTaskStoreMode() {
+        return taskStoreMode;
+    }
+
+    /**
+     * @return seconds for which deleted tasks are reported to syncing clients, not positive if tombstones are only
+     * compacted when there are too many of them
+     */
+    public long getTombstoneRetentionSeconds() {
+        return tombstoneRetentionSeconds;
+    }
+}
@@ -0,0 +1,320 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.service.TaskEvent;
+import efs.task.todoapp.service.TaskEventBus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Streams task events of a user as Server-Sent Events. A subscribed exchange stays open after the handler returns
+ * and holds no thread while idle: events are queued per subscriber and written by a small pool of writer threads.
+ * Each event carries the sequence number of its change as the SSE <code>id</code>, so a client which lost the stream
+ * can fetch what it missed with <code>GET /todo/task?since=</code>.
+ * <p>
+ * A subscriber whose queue overflows, or whose write has not completed within the write timeout, is dropped. The
+ * response stream of an exchange blocks while the client does not read, so a stalled write is aborted by
+ * interrupting its writer thread, which closes the connection. Writes are checked several times per write timeout,
+ * which is much shorter than the heartbeat interval, so clients which stopped reading hold the writer threads only
+ * briefly and the other subscribers keep getting their events. Every heartbeat interval an SSE comment is written
+ * to each subscriber, which keeps proxies from closing idle streams and detects closed connections.
+ */
+public class TaskEventStream {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    private static final byte[] ID_PREFIX = ascii("id: ");
+    private static final byte[] SUBSCRIBED = ascii(": subscribed\n\n");
+    private static final byte[] HEARTBEAT = ascii(": heartbeat\n\n");
+    private static final byte[][] EVENT_PREFIXES = new byte[TaskEvent.Type.values().length][];
+    private static final byte[] EVENT_SUFFIX = ascii("\n\n");
+
+    static {
+        for (TaskEvent.Type type : TaskEvent.Type.values()) {
+            EVENT_PREFIXES[type.ordinal()] = ascii("\nevent: " + type.name().toLowerCase(Locale.ROOT) + "\ndata: ");
+        }
+    }
+
+    private final TaskEventBus bus;
+    private final int threads;
+    private final int queueSize;
+    private final int maxSubscribers;
+    private final long heartbeatNanos;
+    private final long writeTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private volatile ExecutorService writers;
+    private ScheduledExecutorService heartbeats;
+
+    /**
+     * @param threads number of threads writing events
+     * @param queueSize number of events which may wait for a subscriber before it is dropped
+     * @param maxSubscribers number of open streams, further subscriptions are refused
+     * @param heartbeatSeconds seconds between heartbeats
+     * @param writeTimeoutMillis milliseconds after which a stalled write is aborted
+     */
+    public TaskEventStream(TaskEventBus bus, int threads, int queueSize, int maxSubscribers, long heartbeatSeconds,
+                           long writeTimeoutMillis) {
+        this.bus = bus;
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, writeTimeoutMillis));
+    }
+
+    public static TaskEventStream fromSystemProperties(TaskEventBus bus) {
+        return new TaskEventStream(bus, Integer.getInteger("todo.events.threads", 2),
+                Integer.getInteger("todo.events.queue", 64), Integer.getInteger("todo.events.max", 10_000),
+                Long.getLong("todo.events.heartbeat", 15), Long.getLong("todo.events.write.timeout", 1000));
+    }
+
+    /**
+     * Sends the response headers and subscribes the exchange to the task events of the owner. The exchange must not
+     * be closed by the caller when the subscription succeeds.
+     *
+     * @return <code>false</code> if the subscription is refused because too many streams are open
+     */
+    public boolean open(HttpExchange exchange, String owner) throws IOException {
+        if (size.incrementAndGet() > maxSubscribers) {
+            size.decrementAndGet();
+            return false;
+        }
+        try {
+            start();
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(ResponseCodes.OK.getResponseCode(), 0);
+        } catch (IOException | RuntimeException e) {
+            size.decrementAndGet();
+            throw e;
+        }
+        Subscriber subscriber = new Subscriber(exchange, owner);
+        subscribers.add(subscriber);
+        bus.subscribe(owner, subscriber);
+        subscriber.enqueue(SUBSCRIBED);
+        return true;
+    }
+
+    /**
+     * @return number of open streams
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return number of streams closed because their client did not keep up
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops the threads writing events and heartbeats. Streams still open are no longer written to.
+     */
+    public synchronized void shutdown() {
+        if (writers != null) {
+            writers.shutdownNow();
+            heartbeats.shutdownNow();
+        }
+    }
+
+    private synchronized void start() {
+        if (writers == null) {
+            writers = Executors.newFixedThreadPool(threads, daemonThreads("todo-events-"));
+            heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("todo-events-heartbeat-"));
+            heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatNanos, heartbeatNanos, TimeUnit.NANOSECONDS);
+            long checkInterval = Math.max(1, writeTimeoutNanos / 4);
+            heartbeats.scheduleWithFixedDelay(this::abortStalledWrites, checkInterval, checkInterval,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(HEARTBEAT);
+        }
+    }
+
+    private void abortStalledWrites() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.abortStalledWrite(now);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Open stream of one client. Queued items are task events or encoded comments; all output, closing included, is
+     * written by one writer thread at a time.
+     */
+    private final class Subscriber implements Consumer<TaskEvent> {
+        private final HttpExchange exchange;
+        private final OutputStream out;
+        private final String owner;
+        private final ArrayDeque<Object> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closing;
+        private Thread writer;
+        private long writeStart;
+
+        private Subscriber(HttpExchange exchange, String owner) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+            this.owner = owner;
+        }
+
+        @Override
+        public void accept(TaskEvent event) {
+            enqueue(event);
+        }
+
+        private void enqueue(Object item) {
+            synchronized (this) {
+                if (closing) {
+                    return;
+                }
+                if (queue.size() >= queueSize) {
+                    LOGGER.info("Dropping event stream of " + owner + " not keeping up with " + queueSize + " events");
+                    closing = true;
+                    queue.clear();
+                    dropped.increment();
+                } else {
+                    queue.add(item);
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            writers.execute(this::drain);
+        }
+
+        /**
+         * Interrupts the writer if a write has been in progress for longer than the write timeout.
+         */
+        private synchronized void abortStalledWrite(long now) {
+            if (writer == null || now - writeStart < writeTimeoutNanos) {
+                return;
+            }
+            if (!closing) {
+                LOGGER.info("Dropping event stream of " + owner + " not read for " + writeTimeoutNanos / 1_000_000
+                        + " ms");
+                closing = true;
+                dropped.increment();
+            }
+            writer.interrupt();
+        }
+
+        private void drain() {
+            while (true) {
+                List<Object> batch;
+                boolean close;
+                synchronized (this) {
+                    close = closing;
+                    if (queue.isEmpty() && !close) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(queue);
+                    queue.clear();
+                    writer = Thread.currentThread();
+                    writeStart = System.nanoTime();
+                }
+                boolean failed = false;
+                try {
+                    if (close) {
+                        exchange.close();
+                    } else {
+                        for (Object item : batch) {
+                            write(item);
+                            written();
+                        }
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    failed = true;
+                } finally {
+                    synchronized (this) {
+                        writer = null;
+                    }
+                    // an interrupt aborting the write may arrive after it has completed
+                    Thread.interrupted();
+                }
+                if (close || failed) {
+                    if (failed) {
+                        exchange.close();
+                    }
+                    closed();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Restarts the write timeout, which limits the time spent on one item rather than on the whole batch.
+         */
+        private synchronized void written() {
+            writeStart = System.nanoTime();
+        }
+
+        private void write(Object item) throws IOException {
+            if (item instanceof TaskEvent) {
+                TaskEvent event = (TaskEvent) item;
+                out.write(ID_PREFIX);
+                out.write(ascii(Long.toString(event.getSequence())));
+                out.write(EVENT_PREFIXES[event.getType().ordinal()]);
+                out.write(event.getTask() == null
+                        ? TaskJsonWriter.idToBytes(event.getId())
+                        : TaskJsonWriter.toBytes(event.getTask()));
+                out.write(EVENT_SUFFIX);
+            } else {
+                out.write((byte[]) item);
+            }
+        }
+
+        /**
+         * Leaves <code>scheduled</code> set, so nothing is written any more.
+         */
+        private void closed() {
+            synchronized (this) {
+                closing = true;
+                queue.clear();
+            }
+            bus.unsubscribe(owner, this);
+            if (subscribers.remove(this)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.stream.JsonWriter;
+import efs.task.todoapp.repository.TaskChanges;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.BatchResult;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes task responses as UTF-8 JSON. Lists are streamed through a fixed-size buffer, so memory used for a
+ * response does not grow with the number of tasks.
+ */
+final class TaskJsonWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private TaskJsonWriter() {
+    }
+
+    static void writeTasks(OutputStream out, Iterable<TaskEntity> tasks) throws IOException {
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+            writer.beginArray();
+            for (TaskEntity task : tasks) {
+                writeTask(writer, task);
+            }
+            writer.endArray();
+        }
+    }
+
+    static byte[] tasksToBytes(Collection<TaskEntity> tasks) throws IOException {
+        return tasksToBytes(tasks, tasks.size());
+    }
+
+    /**
+     * @param expectedSize expected number of tasks, used to size the buffer
+     */
+    static byte[] tasksToBytes(Iterable<TaskEntity> tasks, int expectedSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + expectedSize * 96);
+        writeTasks(out, tasks);
+        return out.toByteArray();
+    }
+
+    static byte[] toBytes(TaskEntity task) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writeTask(writer, task);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] idToBytes(UUID id) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginObject().name("id").value(id.toString()).endObject();
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] changesToBytes(TaskChanges changes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + changes.getTasks().size() * 96
+                + changes.getDeleted().size() * 40);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginObject();
+            writer.name("tasks").beginArray();
+            for (TaskEntity task : changes.getTasks()) {
+                writeTask(writer, task);
+            }
+            writer.endArray();
+            writer.name("deleted").beginArray();
+            for (UUID id : changes.getDeleted()) {
+                writer.value(id.toString());
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] batchResultsToBytes(List<BatchResult> results) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + results.size() * 64);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (BatchResult result : results) {
+                writer.beginObject();
+                writer.name("status").value(ResponseCodes.of(result.getOutcome()).getResponseCode());
+                if (result.getId() != null) {
+                    writer.name("id").value(result.getId().toString());
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTask(JsonWriter writer, TaskEntity task) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(task.getId().toString());
+        writer.name("description").value(task.getDescription());
+        if (task.getDue() != null) {
+            writer.name("due").value(task.getDue());
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,110 @@
+package efs.task.todoapp.web;
+
+/**
+ * Matches method and path of a request against the task endpoints without regular expressions. The path is
+ * expected without the query string, e.g. from <code>URI.getRawPath()</code>.
+ */
+public final class TaskRouter {
+    static final String TASKS_PATH = "/todo/task";
+    static final String BATCH_PATH = TASKS_PATH + "/batch";
+    static final String EVENTS_PATH = TASKS_PATH + "/events";
+    private static final int ID_OFFSET = TASKS_PATH.length() + 1;
+    private static final int ID_LENGTH = 36;
+
+    private TaskRouter() {
+    }
+
+    public static Route route(String method, String path) {
+        Endpoint endpoint = endpoint(method, path);
+        switch (endpoint) {
+            case CREATE_TASK:
+                return Route.CREATE_TASK;
+            case LIST_TASKS:
+                return Route.LIST_TASKS;
+            case BATCH_TASKS:
+                return Route.BATCH_TASKS;
+            case TASK_EVENTS:
+                return Route.TASK_EVENTS;
+            case GET_TASK:
+            case UPDATE_TASK:
+            case DELETE_TASK:
+                return new Route(endpoint, path.substring(ID_OFFSET));
+            default:
+                return Route.UNKNOWN;
+        }
+    }
+
+    /**
+     * Matches the request like {@link #route(String, String)} without extracting the task id, so nothing is
+     * allocated.
+     */
+    public static Endpoint endpoint(String method, String path) {
+        if (path.equals(TASKS_PATH)) {
+            switch (method) {
+                case "POST":
+                    return Endpoint.CREATE_TASK;
+                case "GET":
+                    return Endpoint.LIST_TASKS;
+                default:
+                    return Endpoint.UNKNOWN;
+            }
+        }
+        if (path.equals(BATCH_PATH)) {
+            return method.equals("POST") ? Endpoint.BATCH_TASKS : Endpoint.UNKNOWN;
+        }
+        if (path.equals(EVENTS_PATH)) {
+            return method.equals("GET") ? Endpoint.TASK_EVENTS : Endpoint.UNKNOWN;
+        }
+        if (!isTaskPath(path)) {
+            return Endpoint.UNKNOWN;
+        }
+        switch (method) {
+            case "GET":
+                return Endpoint.GET_TASK;
+            case "PUT":
+                return Endpoint.UPDATE_TASK;
+            case "DELETE":
+                return Endpoint.DELETE_TASK;
+            default:
+                return Endpoint.UNKNOWN;
+        }
+    }
+
+    /**
+     * Equivalent of matching <code>/todo/task/[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}</code>.
+     */
+    static boolean isTaskPath(String path) {
+        if (path.length() != ID_OFFSET + ID_LENGTH || !path.startsWith(TASKS_PATH)
+                || path.charAt(TASKS_PATH.length()) != '/') {
+            return false;
+        }
+        for (int i = 0; i < ID_LENGTH; i++) {
+            char c = path.charAt(ID_OFFSET + i);
+            switch (i) {
+                case 8:
+                case 13:
+                case 18:
+                case 23:
+                    if (c != '-') {
+                        return false;
+                    }
+                    break;
+                case 14:
+                    if (c < '1' || c > '5') {
+                        return false;
+                    }
+                    break;
+                case 19:
+                    if (c != '8' && c != '9' && c != 'a' && c != 'b') {
+                        return false;
+                    }
+                    break;
+                default:
+                    if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+}
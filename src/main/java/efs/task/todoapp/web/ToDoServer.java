@@ -0,0 +1,109 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.ToDoApplication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Server created by {@link WebServerFactory}. Stopping it also shuts down the executor and, once the exchanges still
+ * running have finished, closes the resources of the application in reverse order of their creation, so background
+ * threads stop and files such as the write-ahead log are released.
+ */
+final class ToDoServer extends HttpServer {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+    private static final long TERMINATION_SECONDS = 5;
+
+    private final HttpServer server;
+    private final BoundedExecutor executor;
+    private final List<Closeable> resources;
+
+    /**
+     * @param resources resources in order of their creation
+     */
+    ToDoServer(HttpServer server, BoundedExecutor executor, List<Closeable> resources) {
+        this.server = server;
+        this.executor = executor;
+        this.resources = new ArrayList<>(resources);
+        Collections.reverse(this.resources);
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public void bind(InetSocketAddress address, int backlog) throws IOException {
+        server.bind(address, backlog);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return server.getExecutor();
+    }
+
+    @Override
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(TERMINATION_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warning("Exchanges still running " + TERMINATION_SECONDS + " seconds after stop, "
+                        + "leaving resources open");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Closeable resource : resources) {
+            try {
+                resource.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.severe("Closing server resource failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public HttpContext createContext(String path, HttpHandler handler) {
+        return server.createContext(path, handler);
+    }
+
+    @Override
+    public HttpContext createContext(String path) {
+        return server.createContext(path);
+    }
+
+    @Override
+    public void removeContext(String path) {
+        server.removeContext(path);
+    }
+
+    @Override
+    public void removeContext(HttpContext context) {
+        server.removeContext(context);
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+}
@@ -0,0 +1,50 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.tracing.SpanRecord;
+import efs.task.todoapp.tracing.Tracer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static efs.task.todoapp.web.ResponseCodes.BAD_REQUEST;
+import static efs.task.todoapp.web.ResponseCodes.OK;
+
+/**
+ * Serves <code>GET /traces</code> as plain text: the dumps of recent slow requests followed by the recent spans.
+ */
+public class TracesHandler implements HttpHandler {
+    private final Tracer tracer;
+
+    public TracesHandler(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") || !exchange.getRequestURI().getPath().equals("/traces")) {
+                exchange.sendResponseHeaders(BAD_REQUEST.getResponseCode(), -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder("# slow traces\n");
+            for (String trace : tracer.slowTraces()) {
+                text.append(trace).append('\n');
+            }
+            text.append("# recent spans\n");
+            for (SpanRecord span : tracer.recentSpans()) {
+                text.append(span).append('\n');
+            }
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(OK.getResponseCode(), body.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import efs.task.todoapp.tracing.Span;
+import efs.task.todoapp.tracing.Tracer;
+
+import java.io.IOException;
+import java.util.function.BiFunction;
+
+/**
+ * Starts a trace for every exchange of a context, named after its endpoint. The trace id is taken from the
+ * <code>X-Trace-Id</code> request header if it is a plausible id, otherwise generated, and returned in the response
+ * header of the same name.
+ */
+@SuppressWarnings("try")
+public class TracingFilter extends Filter {
+    static final String TRACE_ID_HEADER = "X-Trace-Id";
+    private static final int MAX_TRACE_ID_LENGTH = 64;
+
+    private final Tracer tracer;
+    private final BiFunction<String, String, Endpoint> endpoints;
+
+    public TracingFilter(Tracer tracer, BiFunction<String, String, Endpoint> endpoints) {
+        this.tracer = tracer;
+        this.endpoints = endpoints;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        Endpoint endpoint = endpoints.apply(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath());
+        String traceId = exchange.getRequestHeaders().getFirst(TRACE_ID_HEADER);
+        try (Span span = tracer.begin(isValid(traceId) ? traceId : null, endpoint.name())) {
+            exchange.getResponseHeaders().set(TRACE_ID_HEADER, tracer.currentTraceId());
+            chain.doFilter(exchange);
+        }
+    }
+
+    private static boolean isValid(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_TRACE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String description() {
+        return "Traces requests through the handler, service and repository layers";
+    }
+}
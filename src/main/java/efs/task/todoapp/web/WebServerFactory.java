@@ -1,25 +1,132 @@
 package efs.task.todoapp.web;
 
+import com.sun.net.httpserver.Filter;
 import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.persistence.SnapshotManager;
+import efs.task.todoapp.persistence.WriteAheadLog;
+import efs.task.todoapp.repository.CompactTaskStore;
+import efs.task.todoapp.repository.HeapTaskStore;
+import efs.task.todoapp.repository.MappedTaskStore;
+import efs.task.todoapp.repository.MutationLog;
 import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.TaskStore;
 import efs.task.todoapp.repository.UserRepository;
 import efs.task.todoapp.service.ToDoService;
+import efs.task.todoapp.tracing.Tracer;
+import efs.task.todoapp.tracing.Tracing;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 public class WebServerFactory {
+    private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
+
     public static HttpServer createServer() {
-        ToDoService service = new ToDoService(new UserRepository(), new TaskRepository());
+        return createServer(ServerConfig.fromSystemProperties());
+    }
+
+    public static HttpServer createServer(ServerConfig config) {
         InetSocketAddress address = new InetSocketAddress("localhost", 8080);
         try {
+            RequestMetrics metrics = new RequestMetrics();
+            List<Closeable> resources = new ArrayList<>();
+            ToDoService service = createService(config, metrics, resources);
+            metrics.registerTaskListCache(service.getTaskListCache());
             HttpServer httpServer = HttpServer.create(address, 0);
-            httpServer.createContext("/todo/user", new HttpUserHandler(service));
-            httpServer.createContext("/todo/task", new HttpTaskHandler(service));
-            return httpServer;
+            List<Filter> userFilters = new ArrayList<>(List.of(new MetricsFilter(metrics,
+                    WebServerFactory::userEndpoint)));
+            List<Filter> taskFilters = new ArrayList<>(List.of(new MetricsFilter(metrics, TaskRouter::endpoint)));
+            Tracer tracer = Tracer.fromSystemProperties();
+            Tracing.install(tracer);
+            OverloadFilter overloadFilter = new OverloadFilter();
+            if (tracer != null) {
+                userFilters.add(new TracingFilter(tracer, WebServerFactory::userEndpoint));
+                taskFilters.add(new TracingFilter(tracer, TaskRouter::endpoint));
+                httpServer.createContext("/traces", new TracesHandler(tracer)).getFilters().add(overloadFilter);
+            }
+            userFilters.add(overloadFilter);
+            taskFilters.add(overloadFilter);
+            httpServer.createContext("/todo/user", new HttpUserHandler(service)).getFilters().addAll(userFilters);
+            TaskEventStream events = TaskEventStream.fromSystemProperties(service.getTaskEvents());
+            resources.add(events::shutdown);
+            metrics.registerTaskEvents(events);
+            httpServer.createContext("/todo/task", new HttpTaskHandler(service, events)).getFilters()
+                    .addAll(taskFilters);
+            httpServer.createContext("/metrics", new MetricsHandler(metrics)).getFilters().add(overloadFilter);
+            BoundedExecutor executor = BoundedExecutor.create(config);
+            metrics.registerExecutor(executor);
+            return new ToDoServer(httpServer, executor, resources);
         } catch (IOException e) {
             e.printStackTrace();
         }
         return null;
     }
+
+    private static Endpoint userEndpoint(String method, String path) {
+        return method.equals("POST") && path.equals("/todo/user") ? Endpoint.CREATE_USER : Endpoint.UNKNOWN;
+    }
+
+    private static ToDoService createService(ServerConfig config, RequestMetrics metrics, List<Closeable> resources)
+            throws IOException {
+        if (config.getDataDirectory() == null) {
+            UserRepository userRepository = new UserRepository();
+            TaskRepository taskRepository = new TaskRepository(MutationLog.NONE, createTaskStore(config, resources));
+            scheduleTombstoneCompaction(config, taskRepository, resources);
+            metrics.registerRepositories(userRepository, taskRepository);
+            return new ToDoService(userRepository, taskRepository);
+        }
+        WriteAheadLog log = WriteAheadLog.open(config.getDataDirectory());
+        resources.add(log);
+        UserRepository userRepository = new UserRepository(log);
+        TaskRepository taskRepository = new TaskRepository(log, createTaskStore(config, resources));
+        SnapshotManager snapshots = new SnapshotManager(config.getDataDirectory(), log, taskRepository,
+                userRepository);
+        resources.add(snapshots);
+        long records = snapshots.recover();
+        LOGGER.info("Replayed " + records + " records from " + config.getDataDirectory());
+        if (config.getSnapshotIntervalSeconds() > 0) {
+            snapshots.schedule(config.getSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+        }
+        // no client has a sequence number of this run yet, so tombstones of replayed deletes are never read
+        taskRepository.compactTombstones(0, TimeUnit.SECONDS);
+        scheduleTombstoneCompaction(config, taskRepository, resources);
+        metrics.registerRepositories(userRepository, taskRepository);
+        return new ToDoService(userRepository, taskRepository);
+    }
+
+    private static void scheduleTombstoneCompaction(ServerConfig config, TaskRepository taskRepository,
+                                                    List<Closeable> resources) {
+        if (config.getTombstoneRetentionSeconds() > 0) {
+            taskRepository.scheduleTombstoneCompaction(config.getTombstoneRetentionSeconds(), TimeUnit.SECONDS);
+            resources.add(taskRepository::stopTombstoneCompaction);
+        }
+    }
+
+    private static TaskStore createTaskStore(ServerConfig config, List<Closeable> resources) throws IOException {
+        switch (config.getTaskStoreMode()) {
+            case COMPACT:
+                return new CompactTaskStore();
+            case MAPPED:
+                Path file;
+                if (config.getDataDirectory() != null) {
+                    file = config.getDataDirectory().resolve("tasks.dat");
+                } else {
+                    file = Files.createTempFile("todo-tasks", ".dat");
+                    file.toFile().deleteOnExit();
+                }
+                MappedTaskStore store = new MappedTaskStore(file);
+                resources.add(store);
+                return store;
+            default:
+                return new HeapTaskStore();
+        }
+    }
 }
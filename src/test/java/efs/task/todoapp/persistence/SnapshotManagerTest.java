@@ -0,0 +1,154 @@
+package efs.task.todoapp.persistence;
+
+import efs.task.todoapp.repository.MappedTaskStore;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private static TaskEntity task(UUID id, String owner, String description) {
+        TaskEntity task = new TaskEntity(description, "2021-06-30");
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    @Test
+    void recover_shouldLoadSnapshotAndReplayTail() throws IOException {
+        UUID snapshotId = UUID.randomUUID();
+        UUID deletedId = UUID.randomUUID();
+        UUID tailId = UUID.randomUUID();
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            UserRepository userRepository = new UserRepository(log);
+            SnapshotManager snapshots = new SnapshotManager(directory, log, taskRepository, userRepository);
+            snapshots.recover();
+
+            userRepository.save(new UserEntity("janKowalski", null, "hash"));
+            taskRepository.save(task(snapshotId, "janKowalski", "Buy milk"));
+            taskRepository.save(task(deletedId, "janKowalski", "Buy bread"));
+            snapshots.snapshot();
+            taskRepository.delete(deletedId);
+            taskRepository.save(task(tailId, "janKowalski", "Buy żółty ser"));
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder(String.format("snapshot-%020d.bin", 2),
+                            String.format("wal-%020d.log", 2));
+        }
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            UserRepository userRepository = new UserRepository(log);
+
+            assertThat(new SnapshotManager(directory, log, taskRepository, userRepository).recover()).isEqualTo(2);
+            assertThat(userRepository.query("janKowalski").getPasswordHash()).isEqualTo("hash");
+            assertThat(taskRepository.query(snapshotId).getDescription()).isEqualTo("Buy milk");
+            assertThat(taskRepository.query(deletedId)).isNull();
+            assertThat(taskRepository.query(tailId).getDescription()).isEqualTo("Buy żółty ser");
+            assertThat(taskRepository.queryByOwner("janKowalski")).hasSize(2);
+        }
+    }
+
+    @Test
+    void snapshot_ofMappedStoreDuringInsertsAndDeletes_shouldKeepEveryLiveTask() throws Exception {
+        Set<UUID> live = ConcurrentHashMap.newKeySet();
+        try (WriteAheadLog log = WriteAheadLog.open(directory);
+             MappedTaskStore store = new MappedTaskStore(directory.resolve("tasks.dat"))) {
+            TaskRepository taskRepository = new TaskRepository(log, store);
+            SnapshotManager snapshots = new SnapshotManager(directory, log, taskRepository, new UserRepository(log));
+            snapshots.recover();
+            AtomicBoolean stop = new AtomicBoolean();
+            List<Thread> writers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                writers.add(new Thread(() -> {
+                    Deque<UUID> added = new ArrayDeque<>();
+                    while (!stop.get()) {
+                        UUID id = UUID.randomUUID();
+                        taskRepository.save(task(id, "janKowalski", "Buy milk"));
+                        live.add(id);
+                        added.add(id);
+                        if (added.size() > 500) {
+                            UUID removed = added.poll();
+                            live.remove(removed);
+                            taskRepository.delete(removed);
+                        }
+                    }
+                }));
+            }
+            writers.forEach(Thread::start);
+            try {
+                while (taskRepository.size() < 3000) {
+                    Thread.sleep(10);
+                }
+                for (int i = 0; i < 10; i++) {
+                    snapshots.snapshot();
+                }
+            } finally {
+                stop.set(true);
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+            }
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            new SnapshotManager(directory, log, taskRepository, new UserRepository(log)).recover();
+            Set<UUID> recovered = new HashSet<>();
+            taskRepository.forEach(task -> recovered.add(task.getId()));
+
+            assertThat(recovered).isEqualTo(live);
+        }
+    }
+
+    @Test
+    void recover_shouldRejectCorruptedSnapshot() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            SnapshotManager snapshots = new SnapshotManager(directory, log, taskRepository, new UserRepository(log));
+            snapshots.recover();
+            taskRepository.save(task(UUID.randomUUID(), "janKowalski", "Buy milk"));
+            snapshots.snapshot();
+        }
+        Path file = directory.resolve(String.format("snapshot-%020d.bin", 2));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 30);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            SnapshotManager snapshots = new SnapshotManager(directory, log, new TaskRepository(log),
+                    new UserRepository(log));
+
+            assertThatThrownBy(snapshots::recover).isInstanceOf(IOException.class);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package efs.task.todoapp.persistence;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static TaskEntity task(UUID id, String owner, String description) {
+        TaskEntity task = new TaskEntity(description, "2021-06-30");
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    @Test
+    void replay_shouldRestoreMutationsInOrder() throws IOException {
+        UUID updatedId = UUID.randomUUID();
+        UUID deletedId = UUID.randomUUID();
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            UserRepository userRepository = new UserRepository(log);
+            log.replay(taskRepository, userRepository);
+
+            userRepository.save(new UserEntity("janKowalski", null, "hash"));
+            taskRepository.save(task(updatedId, "janKowalski", "Buy milk"));
+            taskRepository.save(task(deletedId, "janKowalski", "Buy bread"));
+            taskRepository.update(updatedId, task(updatedId, "janKowalski", "Buy żółty ser"));
+            taskRepository.delete(deletedId);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            UserRepository userRepository = new UserRepository(log);
+
+            assertThat(log.replay(taskRepository, userRepository)).isEqualTo(5);
+            assertThat(userRepository.query("janKowalski").getPasswordHash()).isEqualTo("hash");
+            assertThat(taskRepository.query(updatedId).getDescription()).isEqualTo("Buy żółty ser");
+            assertThat(taskRepository.query(deletedId)).isNull();
+            assertThat(taskRepository.queryByOwner("janKowalski")).hasSize(1);
+        }
+    }
+
+    @Test
+    void replay_shouldTruncateTornRecord() throws IOException {
+        UUID id = UUID.randomUUID();
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            log.replay(taskRepository, new UserRepository(log));
+            taskRepository.save(task(id, "janKowalski", "Buy milk"));
+            taskRepository.save(task(UUID.randomUUID(), "janKowalski", "Buy bread"));
+        }
+        Path file = directory.resolve(String.format("wal-%020d.log", 1));
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            size = channel.size();
+            channel.truncate(size - 3);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+
+            assertThat(log.replay(taskRepository, new UserRepository(log))).isEqualTo(1);
+            assertThat(taskRepository.query(id)).isNotNull();
+            assertThat(file.toFile().length()).isLessThan(size - 3);
+        }
+    }
+
+    @Test
+    void roll_shouldReplayOnlyKeptSegments() throws IOException {
+        UUID oldId = UUID.randomUUID();
+        UUID newId = UUID.randomUUID();
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+            log.replay(taskRepository, new UserRepository(log));
+            taskRepository.save(task(oldId, "janKowalski", "Buy milk"));
+            long segment = log.roll();
+            taskRepository.save(task(newId, "janKowalski", "Buy bread"));
+            log.deleteSegmentsBefore(segment);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory)) {
+            TaskRepository taskRepository = new TaskRepository(log);
+
+            assertThat(log.replay(taskRepository, new UserRepository(log))).isEqualTo(1);
+            assertThat(taskRepository.query(oldId)).isNull();
+            assertThat(taskRepository.query(newId)).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package efs.task.todoapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactTaskStoreTest {
+
+    private static TaskEntity task(UUID id, String owner, String description, String due) {
+        TaskEntity task = new TaskEntity(description, due);
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    @Test
+    void put_shouldRoundTripAllFields() {
+        CompactTaskStore store = new CompactTaskStore();
+        UUID id = UUID.randomUUID();
+
+        assertThat(store.put(task(id, "janKowalski", "Kup żółty ser", "2021-06-30"))).isNull();
+        TaskEntity previous = store.put(task(id, "janKowalski", "Buy milk", "2021-06-30+01:00"));
+
+        assertThat(previous.getDescription()).isEqualTo("Kup żółty ser");
+        assertThat(previous.getDue()).isEqualTo("2021-06-30");
+        TaskEntity task = store.get(id);
+        assertThat(task.getId()).isEqualTo(id);
+        assertThat(task.getOwner()).isEqualTo("janKowalski");
+        assertThat(task.getDescription()).isEqualTo("Buy milk");
+        assertThat(task.getDue()).isEqualTo("2021-06-30+01:00");
+        assertThat(store.put(task(UUID.randomUUID(), "janKowalski", "Buy bread", null))).isNull();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void remove_shouldKeepOtherTasksReachable() {
+        CompactTaskStore store = new CompactTaskStore(16);
+        Map<UUID, String> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            UUID id = new UUID(random.nextInt(64), random.nextLong());
+            String description = "Task " + i;
+            store.put(task(id, "owner" + (i % 7), description, "2021-06-30"));
+            expected.put(id, description);
+            ids.add(id);
+            if (i % 3 == 0) {
+                UUID removed = ids.get(random.nextInt(ids.size()));
+                assertThat(store.remove(removed) != null).isEqualTo(expected.remove(removed) != null);
+            }
+        }
+
+        assertThat(store.size()).isEqualTo(expected.size());
+        for (UUID id : ids) {
+            TaskEntity task = store.get(id);
+            assertThat(task == null ? null : task.getDescription()).isEqualTo(expected.get(id));
+        }
+        List<UUID> visited = new ArrayList<>();
+        store.forEach(task -> visited.add(task.getId()));
+        assertThat(visited).containsExactlyInAnyOrderElementsOf(expected.keySet());
+    }
+
+    @Test
+    void put_repeatedUpdatesOfOneTask_shouldKeepSlabBounded() {
+        CompactTaskStore store = new CompactTaskStore(16);
+        UUID id = UUID.randomUUID();
+        char[] description = new char[10_000];
+        for (int i = 0; i < 2_000; i++) {
+            Arrays.fill(description, (char) ('a' + i % 26));
+            store.put(task(id, "janKowalski", new String(description), null));
+        }
+
+        assertThat(store.liveSlabBytes()).isEqualTo(description.length);
+        assertThat(store.slabCapacity()).isLessThanOrEqualTo(4 << 20);
+        assertThat(store.get(id).getDescription()).isEqualTo(new String(description));
+    }
+}
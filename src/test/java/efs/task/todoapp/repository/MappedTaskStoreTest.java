@@ -0,0 +1,136 @@
+package efs.task.todoapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedTaskStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static TaskEntity task(UUID id, String owner, String description, String due) {
+        TaskEntity task = new TaskEntity(description, due);
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    @Test
+    void put_shouldRoundTripAllFields() throws IOException {
+        try (MappedTaskStore store = new MappedTaskStore(directory.resolve("tasks.dat"))) {
+            UUID id = UUID.randomUUID();
+
+            assertThat(store.put(task(id, "janKowalski", "Kup żółty ser", "2021-06-30"))).isNull();
+            TaskEntity previous = store.put(task(id, "janKowalski", "Buy milk", null));
+
+            assertThat(previous.getDescription()).isEqualTo("Kup żółty ser");
+            assertThat(previous.getDue()).isEqualTo("2021-06-30");
+            TaskEntity task = store.get(id);
+            assertThat(task.getId()).isEqualTo(id);
+            assertThat(task.getOwner()).isEqualTo("janKowalski");
+            assertThat(task.getDescription()).isEqualTo("Buy milk");
+            assertThat(task.getDue()).isNull();
+            assertThat(store.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void put_shouldCompactReplacedRecords() throws IOException {
+        Path file = directory.resolve("tasks.dat");
+        try (MappedTaskStore store = new MappedTaskStore(file, 4096)) {
+            Map<UUID, String> expected = new HashMap<>();
+            List<UUID> ids = new ArrayList<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 20_000; i++) {
+                UUID id = i < 100 ? new UUID(random.nextInt(64), random.nextLong()) : ids.get(random.nextInt(100));
+                String description = "Task " + i;
+                store.put(task(id, "owner" + (i % 7), description, "2021-06-30"));
+                expected.put(id, description);
+                ids.add(id);
+                if (i % 10 == 0) {
+                    UUID removed = ids.get(random.nextInt(ids.size()));
+                    assertThat(store.remove(removed) != null).isEqualTo(expected.remove(removed) != null);
+                }
+            }
+
+            assertThat(store.size()).isEqualTo(expected.size());
+            for (UUID id : ids) {
+                TaskEntity task = store.get(id);
+                assertThat(task == null ? null : task.getDescription()).isEqualTo(expected.get(id));
+            }
+            List<UUID> visited = new ArrayList<>();
+            store.forEach(task -> visited.add(task.getId()));
+            assertThat(visited).containsExactlyInAnyOrderElementsOf(expected.keySet());
+            assertThat(file.toFile().length()).isLessThan(20_000L * 64);
+        }
+    }
+
+    @Test
+    void forEach_removeShiftingEntryBackAcrossWalkPosition_shouldStillVisitIt() throws IOException {
+        try (MappedTaskStore store = new MappedTaskStore(directory.resolve("tasks.dat"))) {
+            // both ids hash to the last slot of the first walked chunk, so the second one is placed behind it
+            Random random = new Random(42);
+            UUID first = idInSlot(random, 1023);
+            UUID second = idInSlot(random, 1023);
+            store.put(task(first, "janKowalski", "Buy milk", null));
+            store.put(task(second, "janKowalski", "Buy bread", null));
+            List<UUID> visited = new ArrayList<>();
+
+            store.forEach(task -> {
+                visited.add(task.getId());
+                if (task.getId().equals(first)) {
+                    store.remove(first);
+                }
+            });
+
+            assertThat(visited).containsExactly(first, second);
+        }
+    }
+
+    @Test
+    void forEach_resizeDuringWalk_shouldVisitEveryUnchangedTask() throws IOException {
+        try (MappedTaskStore store = new MappedTaskStore(directory.resolve("tasks.dat"))) {
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < 8000; i++) {
+                UUID id = UUID.randomUUID();
+                store.put(task(id, "janKowalski", "Task " + i, null));
+                ids.add(id);
+            }
+            List<UUID> visited = new ArrayList<>();
+
+            store.forEach(task -> {
+                if (visited.isEmpty()) {
+                    for (int i = 0; i < 1000; i++) {
+                        store.put(task(UUID.randomUUID(), "annaNowak", "Task " + i, null));
+                    }
+                }
+                visited.add(task.getId());
+            });
+
+            assertThat(visited).containsAll(ids).doesNotHaveDuplicates();
+        }
+    }
+
+    /**
+     * @return random id whose home slot in the initial table of 16384 slots is the given one
+     */
+    private static UUID idInSlot(Random random, int slot) {
+        while (true) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            if ((CompactTaskStore.hash(id.getMostSignificantBits(), id.getLeastSignificantBits()) & 16383) == slot) {
+                return id;
+            }
+        }
+    }
+}
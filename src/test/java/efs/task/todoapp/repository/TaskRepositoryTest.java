@@ -0,0 +1,262 @@
+package efs.task.todoapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskRepositoryTest {
+
+    private static TaskEntity task(String owner, String description) {
+        return task(UUID.randomUUID(), owner, description, null);
+    }
+
+    private static TaskEntity task(UUID id, String owner, String description, String due) {
+        TaskEntity task = new TaskEntity(description, due);
+        task.setId(id);
+        task.setOwner(owner);
+        return task;
+    }
+
+    @Test
+    void queryByOwner_shouldFollowUpdatesAndDeletes() {
+        TaskRepository repository = new TaskRepository();
+        TaskEntity milk = task(UUID.randomUUID(), "janKowalski", "Buy milk", "2021-06-30");
+        TaskEntity bread = task(UUID.randomUUID(), "janKowalski", "Buy bread", "2021-07-15");
+        TaskEntity tea = task(UUID.randomUUID(), "annaNowak", "Buy tea", null);
+        repository.save(milk);
+        repository.save(bread);
+        repository.save(tea);
+
+        repository.update(milk.getId(), task(milk.getId(), "janKowalski", "Buy milk", "2021-08-01"));
+        repository.update(tea.getId(), task(tea.getId(), "janKowalski", "Buy tea", null));
+        repository.delete(bread.getId());
+        TaskQuery julyOnwards = new TaskQuery(null, 10, LocalDate.of(2021, 6, 30), null);
+        List<Integer> counts = new ArrayList<>();
+        repository.forEachOwnerTaskCount(counts::add);
+
+        assertThat(repository.queryByOwner("janKowalski")).extracting(TaskEntity::getId)
+                .containsExactlyInAnyOrder(milk.getId(), tea.getId());
+        assertThat(repository.queryByOwner("annaNowak")).isEmpty();
+        assertThat(repository.iterateByOwner("janKowalski")).containsExactlyElementsOf(
+                repository.queryByOwner("janKowalski"));
+        assertThat(repository.iterateByOwner("annaNowak")).isEmpty();
+        assertThat(repository.ownerTaskCount("janKowalski")).isEqualTo(2);
+        assertThat(repository.queryByOwner("janKowalski", julyOnwards).getTasks()).extracting(TaskEntity::getDue)
+                .containsExactly("2021-08-01");
+        assertThat(repository.isOwnedBy(tea.getId(), "janKowalski")).isTrue();
+        assertThat(repository.isOwnedBy(tea.getId(), "annaNowak")).isFalse();
+        assertThat(repository.isOwnedBy(bread.getId(), "janKowalski")).isFalse();
+        assertThat(counts).containsExactly(2);
+    }
+
+    @Test
+    void replace_concurrentWritersOfSameVersion_shouldLetExactlyOneWin() throws InterruptedException {
+        TaskRepository repository = new TaskRepository();
+        TaskEntity original = task("janKowalski", "Buy milk");
+        repository.save(original);
+        TaskEntity expected = task(original.getId(), "janKowalski", "Buy milk", null);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<String> winners = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String description = "Buy milk " + i;
+            threads.add(new Thread(() -> {
+                TaskEntity replacement = task(original.getId(), "janKowalski", description, null);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (repository.replace(original.getId(), expected, replacement)) {
+                    synchronized (winners) {
+                        winners.add(description);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(winners).hasSize(1);
+        assertThat(repository.query(original.getId()).getDescription()).isEqualTo(winners.get(0));
+        assertThat(repository.delete(original.getId(), original)).isFalse();
+        assertThat(repository.delete(original.getId(), repository.query(original.getId()))).isTrue();
+        assertThat(repository.queryByOwner("janKowalski")).isEmpty();
+    }
+
+    @Test
+    void changeListener_concurrentWriters_shouldReceiveChangesOfOwnerInSequenceOrder() throws InterruptedException {
+        TaskRepository repository = new TaskRepository();
+        List<Long> sequences = new ArrayList<>();
+        repository.setChangeListener(new TaskChangeListener() {
+            @Override
+            public void taskSaved(String owner, TaskEntity task, boolean created, long sequence) {
+                sequences.add(sequence);
+            }
+
+            @Override
+            public void taskDeleted(String owner, UUID id, long sequence) {
+                sequences.add(sequence);
+            }
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 1000; j++) {
+                    TaskEntity task = task("janKowalski", "Buy milk");
+                    repository.save(task);
+                    repository.update(task.getId(), task(task.getId(), "janKowalski", "Buy bread", null));
+                    repository.delete(task.getId());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(sequences).hasSize(8 * 3000).isSorted()
+                .endsWith(repository.syncSequence("janKowalski"));
+    }
+
+    @Test
+    void save_afterLogFailed_shouldRefuseChangesWithoutApplyingThem() {
+        UncheckedIOException failure = new UncheckedIOException(new IOException("No space left on device"));
+        MutationLog failing = new MutationLog() {
+            private boolean failed;
+
+            @Override
+            public long taskSaved(TaskEntity task) {
+                return append();
+            }
+
+            @Override
+            public long taskDeleted(UUID id) {
+                return append();
+            }
+
+            @Override
+            public long userSaved(UserEntity user) {
+                return append();
+            }
+
+            @Override
+            public long userDeleted(String username) {
+                return append();
+            }
+
+            @Override
+            public void sync(long position) {
+                failed = true;
+                throw failure;
+            }
+
+            private long append() {
+                if (failed) {
+                    throw failure;
+                }
+                return 0;
+            }
+        };
+        TaskRepository repository = new TaskRepository(failing);
+        List<Long> sequences = new ArrayList<>();
+        repository.setChangeListener(new TaskChangeListener() {
+            @Override
+            public void taskSaved(String owner, TaskEntity task, boolean created, long sequence) {
+                sequences.add(sequence);
+            }
+
+            @Override
+            public void taskDeleted(String owner, UUID id, long sequence) {
+                sequences.add(sequence);
+            }
+        });
+        TaskEntity milk = task("janKowalski", "Buy milk");
+        TaskEntity bread = task("janKowalski", "Buy bread");
+
+        assertThatThrownBy(() -> repository.save(milk)).isSameAs(failure);
+        long sequence = repository.syncSequence("janKowalski");
+        assertThatThrownBy(() -> repository.save(bread)).isSameAs(failure);
+        assertThatThrownBy(() -> repository.delete(milk.getId())).isSameAs(failure);
+
+        assertThat(repository.queryByOwner("janKowalski")).containsExactly(milk);
+        assertThat(repository.query(bread.getId())).isNull();
+        assertThat(repository.syncSequence("janKowalski")).isEqualTo(sequence);
+        assertThat(sequences).containsExactly(sequence);
+    }
+
+    @Test
+    void changesSince_shouldReturnLastChangeOfEveryTaskOnce() {
+        TaskRepository repository = new TaskRepository();
+        TaskEntity kept = task("janKowalski", "Buy milk");
+        TaskEntity deleted = task("janKowalski", "Buy bread");
+        repository.save(kept);
+        long sequence = repository.syncSequence("janKowalski");
+        repository.save(deleted);
+        TaskEntity updated = task("janKowalski", "Buy cheese");
+        updated.setId(kept.getId());
+        repository.update(kept.getId(), updated);
+        repository.delete(deleted.getId());
+        repository.save(task("annaNowak", "Buy tea"));
+
+        TaskChanges changes = repository.changesSince("janKowalski", sequence);
+
+        assertThat(changes.getTasks()).extracting(TaskEntity::getDescription).containsExactly("Buy cheese");
+        assertThat(changes.getDeleted()).containsExactly(deleted.getId());
+        assertThat(changes.getSequence()).isEqualTo(repository.syncSequence("janKowalski"));
+        assertThat(repository.changesSince("janKowalski", changes.getSequence()).getTasks()).isEmpty();
+        assertThat(repository.changesSince("janKowalski", Long.MAX_VALUE)).isNull();
+        assertThat(repository.changesSince("janKowalski", 0)).isNull();
+    }
+
+    @Test
+    void compactTombstones_shouldExpireChangesSinceEarlierSequences() {
+        TaskRepository repository = new TaskRepository();
+        TaskEntity task = task("janKowalski", "Buy milk");
+        long beforeSave = repository.syncSequence("janKowalski");
+        repository.save(task);
+        repository.delete(task.getId());
+        long afterDelete = repository.syncSequence("janKowalski");
+
+        assertThat(repository.compactTombstones(1, TimeUnit.HOURS)).isZero();
+        assertThat(repository.changesSince("janKowalski", beforeSave).getDeleted()).containsExactly(task.getId());
+        assertThat(repository.compactTombstones(0, TimeUnit.SECONDS)).isEqualTo(1);
+
+        assertThat(repository.changesSince("janKowalski", beforeSave)).isNull();
+        TaskChanges changes = repository.changesSince("janKowalski", afterDelete);
+        assertThat(changes.getTasks()).isEmpty();
+        assertThat(changes.getDeleted()).isEmpty();
+        assertThat(repository.ownerVersion("janKowalski")).isZero();
+        assertThat(repository.syncSequence("janKowalski")).isEqualTo(afterDelete);
+        assertThat(repository.syncSequence("annaNowak")).isEqualTo(beforeSave);
+        assertThat(repository.changesSince("annaNowak", beforeSave).getDeleted()).isEmpty();
+
+        TaskEntity saved = task("janKowalski", "Buy bread");
+        repository.save(saved);
+        repository.save(task("annaNowak", "Buy tea"));
+        assertThat(repository.changesSince("janKowalski", beforeSave)).isNull();
+        assertThat(repository.changesSince("janKowalski", afterDelete).getTasks()).containsExactly(saved);
+        assertThat(repository.changesSince("annaNowak", beforeSave).getTasks()).extracting(TaskEntity::getDescription)
+                .containsExactly("Buy tea");
+    }
+}
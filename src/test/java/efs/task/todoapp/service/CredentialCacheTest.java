@@ -0,0 +1,52 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CredentialCacheTest {
+
+    @Test
+    void getVerifiedUser_shouldRejectCachedCredentialsOfChangedOrRemovedUser() throws Exception {
+        UserRepository userRepository = new UserRepository();
+        CredentialCache cache = new CredentialCache(100, 5, TimeUnit.MINUTES);
+        ToDoService service = new ToDoService(userRepository, new TaskRepository(), cache,
+                new PasswordHasher(1000, 1, 4));
+        service.saveUser(new UserEntity("janKowalski", "am!sK#123"));
+        service.verifyUser("auth", List.of("janKowalski", "am!sK#123"));
+        assertThat(service.getVerifiedUser("auth")).isEqualTo("janKowalski");
+
+        UserEntity user = userRepository.query("janKowalski");
+        userRepository.update("janKowalski", new UserEntity("janKowalski", null, user.getPasswordHash()));
+        assertThat(service.getVerifiedUser("auth")).isNull();
+        assertThat(cache.size()).isZero();
+
+        service.verifyUser("auth", List.of("janKowalski", "am!sK#123"));
+        userRepository.delete("janKowalski");
+        assertThat(service.getVerifiedUser("auth")).isNull();
+        assertThat(cache.get("auth")).isNull();
+    }
+
+    @Test
+    void put_shouldEvictExpiredAndOldEntriesBeyondMaxSize() throws InterruptedException {
+        CredentialCache cache = new CredentialCache(100, 1, TimeUnit.HOURS);
+        UserEntity user = new UserEntity("janKowalski", null, "hash");
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("auth" + i, user);
+            assertThat(cache.size()).isLessThanOrEqualTo(100);
+        }
+        assertThat(cache.get("auth9999")).isSameAs(user);
+
+        CredentialCache expiring = new CredentialCache(100, 1, TimeUnit.MILLISECONDS);
+        expiring.put("auth", user);
+        Thread.sleep(5);
+        assertThat(expiring.get("auth")).isNull();
+        assertThat(expiring.size()).isZero();
+    }
+}
@@ -0,0 +1,34 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.service.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+
+    @Test
+    void hash_shouldBeSaltedAndVerifyOnlyItsPassword() throws ServiceUnavailableException {
+        PasswordHasher hasher = new PasswordHasher(1000, 1, 4);
+
+        String first = hasher.hash("am!sK#123");
+        String second = hasher.hash("am!sK#123");
+
+        assertThat(first).startsWith("pbkdf2-sha256$1000$").isNotEqualTo(second);
+        assertThat(first.split("\\$")[2]).isNotEqualTo(second.split("\\$")[2]);
+        assertThat(hasher.verify("am!sK#123", first)).isTrue();
+        assertThat(hasher.verify("am!sK#123", second)).isTrue();
+        assertThat(hasher.verify("am!sK#124", first)).isFalse();
+        assertThat(hasher.verify("am!sK#123", "am!sK#123")).isFalse();
+        assertThat(new PasswordHasher(2000, 1, 4).verify("am!sK#123", first)).isTrue();
+    }
+
+    @Test
+    void verify_withoutFreeThreadOrQueueSlot_shouldBeRefused() {
+        PasswordHasher hasher = new PasswordHasher(1000, 0, 0);
+
+        assertThatThrownBy(() -> hasher.hash("am!sK#123")).isInstanceOf(ServiceUnavailableException.class);
+        assertThatThrownBy(() -> hasher.verifyMissing("am!sK#123")).isInstanceOf(ServiceUnavailableException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package efs.task.todoapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskListCacheTest {
+
+    @Test
+    void get_shouldReturnBodyOnlyForCachedVersionUntilInvalidated() {
+        TaskListCache cache = new TaskListCache(1024 * 1024);
+        byte[] body = "[]".getBytes();
+
+        cache.put("owner", 3, body);
+        cache.put("owner", 2, "[{}]".getBytes());
+
+        assertThat(cache.get("owner", 3)).isSameAs(body);
+        assertThat(cache.get("owner", 4)).isNull();
+        assertThat(cache.get("other", 3)).isNull();
+        cache.invalidate("owner");
+        assertThat(cache.get("owner", 3)).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(3);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getBytes()).isZero();
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedBodiesBeyondMaxBytes() throws InterruptedException {
+        int entryBytes = TaskListCache.ENTRY_OVERHEAD + 2 * "owner0".length() + 1000;
+        TaskListCache cache = new TaskListCache(8L * entryBytes);
+        for (int i = 0; i < 8; i++) {
+            cache.put("owner" + i, 1, new byte[1000]);
+            Thread.sleep(1);
+        }
+        assertThat(cache.get("owner0", 1)).isNotNull();
+
+        cache.put("owner8", 1, new byte[1000]);
+        cache.put("large", 1, new byte[entryBytes + 1]);
+
+        assertThat(cache.getEvictions()).isEqualTo(3);
+        assertThat(cache.getBytes()).isEqualTo(6L * entryBytes);
+        assertThat(cache.get("owner0", 1)).isNotNull();
+        assertThat(cache.get("owner8", 1)).isNotNull();
+        assertThat(cache.get("owner1", 1)).isNull();
+        assertThat(cache.get("owner3", 1)).isNull();
+        assertThat(cache.get("owner4", 1)).isNotNull();
+        assertThat(cache.get("large", 1)).isNull();
+    }
+}
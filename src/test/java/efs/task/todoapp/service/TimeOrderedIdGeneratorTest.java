@@ -0,0 +1,54 @@
+package efs.task.todoapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void nextId_shouldReturnOrderedVersion4Ids() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+        UUID previous = generator.nextId();
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = generator.nextId();
+
+            assertThat(id.version()).isEqualTo(4);
+            assertThat(id.variant()).isEqualTo(2);
+            assertThat(id.toString()).matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}");
+            assertThat(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()) > 0
+                    || id.getMostSignificantBits() == previous.getMostSignificantBits()
+                    && Long.compareUnsigned(id.getLeastSignificantBits(), previous.getLeastSignificantBits()) > 0)
+                    .isTrue();
+            previous = id;
+        }
+    }
+
+    @Test
+    void nextId_shouldBeUniqueAcrossThreads() throws InterruptedException {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(4);
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ids).hasSize(16 * 20_000);
+    }
+}
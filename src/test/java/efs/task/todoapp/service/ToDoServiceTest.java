@@ -0,0 +1,37 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ToDoServiceTest {
+
+    @Test
+    void saveTask_withUsedGeneratedId_shouldRetryWithFreshIdAndFailAfterLimit() {
+        UUID used = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        UUID[] ids = {used, used, fresh, used, used, used};
+        int[] next = {0};
+        TaskRepository taskRepository = new TaskRepository();
+        ToDoService service = new ToDoService(new UserRepository(), taskRepository,
+                new CredentialCache(100, 5, TimeUnit.MINUTES), new PasswordHasher(1000, 1, 4),
+                () -> ids[next[0]++]);
+        TaskEntity existing = new TaskEntity("Buy milk", null);
+        existing.setId(used);
+        existing.setOwner("annaNowak");
+        taskRepository.save(existing);
+
+        assertThat(service.saveTask(new TaskEntity("Buy bread", null), "janKowalski")).isEqualTo(fresh);
+        assertThatThrownBy(() -> service.saveTask(new TaskEntity("Buy tea", null), "janKowalski"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(taskRepository.query(used).getOwner()).isEqualTo("annaNowak");
+        assertThat(taskRepository.queryByOwner("janKowalski")).hasSize(1);
+    }
+}
@@ -0,0 +1,61 @@
+package efs.task.todoapp.tracing;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.ToDoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("try")
+class TracerTest {
+
+    @AfterEach
+    void tearDown() {
+        Tracing.install(null);
+    }
+
+    @Test
+    void spans_shouldBeRecordedThroughServiceAndRepositoryAndSlowTracesDumped() {
+        Tracer tracer = new Tracer(16, 0);
+        Tracing.install(tracer);
+        ToDoService service = new ToDoService(new UserRepository(), new TaskRepository());
+
+        try (Span root = tracer.begin("trace-1", "CREATE_TASK")) {
+            service.saveTask(new TaskEntity("Buy milk", "2021-06-30"), "owner");
+        }
+
+        List<SpanRecord> spans = tracer.recentSpans();
+        assertThat(spans).extracting(SpanRecord::getName)
+                .containsExactly("TaskRepository.save", "ToDoService.saveTask", "CREATE_TASK");
+        assertThat(spans).extracting(SpanRecord::getDepth).containsExactly(2, 1, 0);
+        assertThat(spans).allMatch(span -> span.getTraceId().equals("trace-1"));
+        assertThat(tracer.slowTraces()).singleElement().asString()
+                .startsWith("trace trace-1 took")
+                .contains("\n  CREATE_TASK +0.000 ms", "\n    ToDoService.saveTask", "\n      TaskRepository.save");
+        assertThat(tracer.currentTraceId()).isNull();
+    }
+
+    @Test
+    void spans_shouldBeNoOpWithoutTracerOrTrace() {
+        assertThat(Tracing.span("ToDoService.saveTask")).isSameAs(Span.NOOP);
+
+        Tracer tracer = new Tracer(4, 1000);
+        Tracing.install(tracer);
+        assertThat(Tracing.span("ToDoService.saveTask")).isSameAs(Span.NOOP);
+
+        for (int i = 0; i < 6; i++) {
+            try (Span root = tracer.begin(null, "span" + i)) {
+                assertThat(tracer.currentTraceId()).hasSize(32);
+            }
+        }
+        assertThat(tracer.recentSpans().stream().map(SpanRecord::getName).collect(Collectors.toList()))
+                .containsExactly("span2", "span3", "span4", "span5");
+        assertThat(tracer.slowTraces()).isEmpty();
+    }
+}
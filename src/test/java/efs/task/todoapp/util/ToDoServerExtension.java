@@ -2,20 +2,36 @@ package efs.task.todoapp.util;
 
 import com.sun.net.httpserver.HttpServer;
 import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.web.ServerConfig;
+import efs.task.todoapp.web.WebServerFactory;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.Extension;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
 
-import java.io.IOException;
+import java.util.Optional;
 
+/**
+ * Starts the server before every test, with the task store selected by {@link WithTaskStore} on the test class, or
+ * configured by system properties without it.
+ */
 public class ToDoServerExtension implements Extension, BeforeEachCallback, AfterEachCallback {
     private HttpServer server;
 
     @Override
     public void beforeEach(ExtensionContext extensionContext) {
-        var todoApplication = new ToDoApplication();
-        server = todoApplication.createServer();
+        Optional<WithTaskStore> taskStore = AnnotationSupport.findAnnotation(
+                extensionContext.getRequiredTestClass(), WithTaskStore.class);
+        if (taskStore.isPresent()) {
+            ServerConfig config = ServerConfig.fromSystemProperties();
+            server = WebServerFactory.createServer(new ServerConfig(config.getExecutorMode(), config.getThreads(),
+                    config.getQueueDepth(), config.getDataDirectory(), config.getSnapshotIntervalSeconds(),
+                    taskStore.get().value(), config.getTombstoneRetentionSeconds()));
+        } else {
+            var todoApplication = new ToDoApplication();
+            server = todoApplication.createServer();
+        }
         server.start();
     }
 
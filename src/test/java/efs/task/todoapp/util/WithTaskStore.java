@@ -0,0 +1,17 @@
+package efs.task.todoapp.util;
+
+import efs.task.todoapp.web.ServerConfig;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the task store of the server started by {@link ToDoServerExtension} for the annotated test class.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface WithTaskStore {
+    ServerConfig.TaskStoreMode value();
+}
@@ -0,0 +1,52 @@
+package efs.task.todoapp.web;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedExecutorTest {
+
+    @Test
+    @Timeout(5)
+    void execute_overLimit_shouldRunOverloadedOffCallerThreadOrRefuse() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor(Executors.newFixedThreadPool(1), 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            CompletableFuture<Thread> overloadedThread = new CompletableFuture<>();
+            executor.execute(() -> {
+                if (BoundedExecutor.isOverloaded()) {
+                    overloadedThread.complete(Thread.currentThread());
+                }
+                await(release);
+            });
+
+            assertThat(overloadedThread.get()).isNotSameAs(Thread.currentThread());
+            assertThat(BoundedExecutor.isOverloaded()).isFalse();
+            assertThatThrownBy(() -> {
+                for (int i = 0; i < 100; i++) {
+                    executor.execute(() -> await(release));
+                }
+            }).isInstanceOf(IOException.class).hasCauseInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.util.WithTaskStore;
+
+/**
+ * Runs the task endpoint tests against {@link efs.task.todoapp.repository.CompactTaskStore}.
+ */
+@WithTaskStore(ServerConfig.TaskStoreMode.COMPACT)
+class CompactStoreHttpTaskHandlerTest extends HttpTaskHandlerTest {
+}
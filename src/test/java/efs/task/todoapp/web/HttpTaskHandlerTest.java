@@ -17,9 +17,16 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static efs.task.todoapp.web.ResponseCodes.*;
@@ -141,6 +148,128 @@ class HttpTaskHandlerTest {
         assertThat(httpResponseTaskGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
     }
 
+    @Test
+    @Timeout(1)
+    void getTask_withQueryString_shouldReturnOKCode() throws IOException, InterruptedException {
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task?client=mobile"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+
+        HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseUser.statusCode()).as("Response status code").isEqualTo(CREATED.getResponseCode());
+        assertThat(httpResponseTaskGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+    }
+
+    @Test
+    @Timeout(1)
+    void getTask_specialCharacters_shouldReturnValidJson() throws IOException, InterruptedException {
+
+        String description = "Kup \"mleko\" i żółty ser";
+        String sampleBodyTask = gson.toJson(new TaskEntity(description, "2021-06-30"));
+
+        var httpRequestTask = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(sampleBodyTask))
+                .header("auth", getEncodedData(login))
+                .build();
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+
+        HttpResponse<String> httpResponseEmptyGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponseTaskPOST = httpClient.send(httpRequestTask, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+        TaskEntity[] tasks = gson.fromJson(httpResponseTaskGET.body(), TaskEntity[].class);
+
+        assertThat(httpResponseEmptyGET.body()).isEqualTo("[]");
+        assertThat(httpResponseTaskPOST.statusCode()).as("Response status code").isEqualTo(CREATED.getResponseCode());
+        assertThat(httpResponseTaskGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(tasks).hasSize(1);
+        assertThat(tasks[0].getDescription()).isEqualTo(description);
+    }
+
+    @Test
+    @Timeout(2)
+    void getTask_withLimitAndCursor_shouldReturnAllTasksInPages() throws IOException, InterruptedException {
+
+        for (int day = 1; day <= 5; day++) {
+            var httpRequestTask = HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("Task " + day, "2021-06-0" + day))))
+                    .header("auth", getEncodedData(login))
+                    .build();
+            httpClient.send(httpRequestTask, HttpResponse.BodyHandlers.ofString());
+        }
+
+        Set<String> descriptions = new HashSet<>();
+        String query = "task?limit=2";
+        int pages = 0;
+        while (query != null) {
+            var httpRequestTaskGET = HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + query))
+                    .GET()
+                    .header("auth", getEncodedData(login))
+                    .build();
+
+            HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+            TaskEntity[] tasks = gson.fromJson(httpResponseTaskGET.body(), TaskEntity[].class);
+
+            assertThat(httpResponseTaskGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+            assertThat(tasks.length).isLessThanOrEqualTo(2);
+            for (TaskEntity task : tasks) {
+                descriptions.add(task.getDescription());
+            }
+            query = httpResponseTaskGET.headers().firstValue("X-Next-Cursor")
+                    .map(cursor -> "task?limit=2&cursor=" + cursor)
+                    .orElse(null);
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(descriptions).containsExactlyInAnyOrder("Task 1", "Task 2", "Task 3", "Task 4", "Task 5");
+    }
+
+    @Test
+    @Timeout(2)
+    void getTask_withDueFilter_shouldReturnTasksDueInRange() throws IOException, InterruptedException {
+
+        for (int day = 1; day <= 5; day++) {
+            var httpRequestTask = HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("Task " + day, "2021-06-0" + day))))
+                    .header("auth", getEncodedData(login))
+                    .build();
+            httpClient.send(httpRequestTask, HttpResponse.BodyHandlers.ofString());
+        }
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task?dueAfter=2021-06-01&dueBefore=2021-06-05"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+
+        var httpRequestInvalidGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task?dueBefore=tomorrow"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+
+        HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponseInvalidGET = httpClient.send(httpRequestInvalidGET, HttpResponse.BodyHandlers.ofString());
+        TaskEntity[] tasks = gson.fromJson(httpResponseTaskGET.body(), TaskEntity[].class);
+
+        assertThat(httpResponseTaskGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(tasks).extracting(TaskEntity::getDescription).containsExactly("Task 2", "Task 3", "Task 4");
+        assertThat(httpResponseInvalidGET.statusCode()).as("Response status code").isEqualTo(BAD_REQUEST.getResponseCode());
+    }
+
     @Test
     @Timeout(1)
     void getTask_missingHeader_shouldReturnBAD_REQUESTCode() throws IOException, InterruptedException {
@@ -660,4 +789,366 @@ class HttpTaskHandlerTest {
         assertThat(httpResponseTaskDELETE.statusCode()).as("Response status code").isEqualTo(NOT_FOUND.getResponseCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    @Timeout(2)
+    void getTask_concurrentUsers_shouldReturnOnlyOwnTasks() throws IOException, InterruptedException {
+
+        String secondUser = gson.toJson(new UserEntity("secondLogin", password));
+
+        HttpRequest httpRequestSecondUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(secondUser))
+                .build();
+
+        var httpResponseSecondUser = httpClient.send(httpRequestSecondUser, HttpResponse.BodyHandlers.ofString());
+
+        List<CompletableFuture<HttpResponse<String>>> httpResponsesTaskPOST = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String owner = i % 2 == 0 ? login : "secondLogin";
+            var httpRequestTask = HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity(owner, "2021-06-30"))))
+                    .header("auth", getEncodedData(owner))
+                    .build();
+            httpResponsesTaskPOST.add(httpClient.sendAsync(httpRequestTask, HttpResponse.BodyHandlers.ofString()));
+        }
+        httpResponsesTaskPOST.forEach(response -> assertThat(response.join().statusCode())
+                .as("Response status code").isEqualTo(CREATED.getResponseCode()));
+
+        for (String owner : List.of(login, "secondLogin")) {
+            var httpRequestTaskGET = HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task"))
+                    .GET()
+                    .header("auth", getEncodedData(owner))
+                    .build();
+
+            HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+            TaskEntity[] tasks = gson.fromJson(httpResponseTaskGET.body(), TaskEntity[].class);
+
+            assertThat(httpResponseTaskGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+            assertThat(tasks).hasSize(10).allMatch(task -> task.getDescription().equals(owner));
+        }
+        assertThat(httpResponseUser.statusCode()).as("Response status code").isEqualTo(CREATED.getResponseCode());
+        assertThat(httpResponseSecondUser.statusCode()).as("Response status code").isEqualTo(CREATED.getResponseCode());
+    }
+
+    @Test
+    @Timeout(2)
+    void postTaskBatch_shouldReturnStatusOfEveryOperation() throws IOException, InterruptedException {
+
+        var httpRequestTaskPOST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("kup mleko", "2021-06-30"))))
+                .header("auth", getEncodedData(login))
+                .build();
+        String idTask = gson.fromJson(httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString()).body(),
+                TaskEntity.class).getId().toString();
+        String missingId = UUID.randomUUID().toString();
+        String batch = "{\"operations\":["
+                + "{\"type\":\"create\",\"task\":{\"description\":\"kup chleb\"}},"
+                + "{\"type\":\"update\",\"id\":\"" + idTask + "\",\"task\":{\"description\":\"kup ser\"}},"
+                + "{\"type\":\"delete\",\"id\":\"" + missingId + "\"},"
+                + "{\"type\":\"create\",\"task\":{\"description\":\"\"}}]}";
+
+        var httpRequestBatch = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(batch))
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseBatch = httpClient.send(httpRequestBatch, HttpResponse.BodyHandlers.ofString());
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTask))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseBatch.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseBatch.body())
+                .matches("\\[\\{\"status\":201,\"id\":\"[0-9a-f-]{36}\"},"
+                        + "\\{\"status\":200,\"id\":\"" + idTask + "\"},"
+                        + "\\{\"status\":404,\"id\":\"" + missingId + "\"},"
+                        + "\\{\"status\":400}]");
+        assertThat(gson.fromJson(httpResponseTaskGET.body(), TaskEntity.class).getDescription()).isEqualTo("kup ser");
+    }
+
+    @Test
+    @Timeout(2)
+    void postTaskBatch_atomicWithFailure_shouldApplyNothing() throws IOException, InterruptedException {
+
+        String batch = "{\"atomic\":true,\"operations\":["
+                + "{\"type\":\"create\",\"task\":{\"description\":\"kup chleb\"}},"
+                + "{\"type\":\"delete\",\"id\":\"" + UUID.randomUUID() + "\"}]}";
+
+        var httpRequestBatch = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(batch))
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseBatch = httpClient.send(httpRequestBatch, HttpResponse.BodyHandlers.ofString());
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseBatch.statusCode()).as("Response status code").isEqualTo(CONFLICT.getResponseCode());
+        assertThat(httpResponseBatch.body()).startsWith("[{\"status\":409}");
+        assertThat(httpResponseTaskGET.body()).isEqualTo("[]");
+    }
+
+    @Test
+    @Timeout(2)
+    void postTask_tooLargeBody_shouldReturnPAYLOAD_TOO_LARGE() throws IOException, InterruptedException {
+
+        String description = "a".repeat(RequestBodyReader.MAX_BODY_BYTES);
+        var httpRequestTaskPOST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity(description, "2021-06-30"))))
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseTaskPOST = httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseTaskPOST.statusCode()).as("Response status code")
+                .isEqualTo(PAYLOAD_TOO_LARGE.getResponseCode());
+    }
+
+    @Test
+    @Timeout(2)
+    void postTask_nonAsciiDescription_shouldBeReadAsUtf8() throws IOException, InterruptedException {
+
+        var httpRequestTaskPOST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"description\":\"kup \u017c\u00f3\u0142ty ser\",\"unknown\":[1,{}],\"due\":\"2021-06-30\"}"))
+                .header("auth", getEncodedData(login))
+                .build();
+        String idTask = gson.fromJson(httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString()).body(),
+                TaskEntity.class).getId().toString();
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTask))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseTaskGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+        TaskEntity task = gson.fromJson(httpResponseTaskGET.body(), TaskEntity.class);
+
+        assertThat(task.getDescription()).isEqualTo("kup \u017c\u00f3\u0142ty ser");
+        assertThat(task.getDue()).isEqualTo("2021-06-30");
+    }
+
+    @Test
+    @Timeout(2)
+    void getTasks_withCurrentETag_shouldReturnNOT_MODIFIEDUntilTasksChange() throws IOException, InterruptedException {
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseFirstGET = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString());
+        String etag = httpResponseFirstGET.headers().firstValue("ETag").orElseThrow();
+
+        var httpRequestConditionalGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .header("If-None-Match", etag)
+                .build();
+        HttpResponse<String> httpResponseNotModified = httpClient.send(httpRequestConditionalGET,
+                HttpResponse.BodyHandlers.ofString());
+
+        var httpRequestTaskPOST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("kup mleko", "2021-06-30"))))
+                .header("auth", getEncodedData(login))
+                .build();
+        httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponseModified = httpClient.send(httpRequestConditionalGET,
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseFirstGET.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseNotModified.statusCode()).as("Response status code")
+                .isEqualTo(NOT_MODIFIED.getResponseCode());
+        assertThat(httpResponseNotModified.body()).isEmpty();
+        assertThat(httpResponseNotModified.headers().firstValue("ETag")).contains(etag);
+        assertThat(httpResponseModified.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseModified.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+        assertThat(httpResponseModified.body()).contains("kup mleko");
+    }
+
+    @Test
+    @Timeout(2)
+    void getTaskWithId_withCurrentETag_shouldReturnNOT_MODIFIED() throws IOException, InterruptedException {
+
+        var httpRequestTaskPOST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("kup mleko", "2021-06-30"))))
+                .header("auth", getEncodedData(login))
+                .build();
+        String idTask = gson.fromJson(httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString()).body(),
+                TaskEntity.class).getId().toString();
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTask))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        String etag = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString()).headers()
+                .firstValue("ETag").orElseThrow();
+
+        var httpRequestConditionalGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTask))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .header("If-None-Match", "\"other\", " + etag)
+                .build();
+        HttpResponse<String> httpResponseNotModified = httpClient.send(httpRequestConditionalGET,
+                HttpResponse.BodyHandlers.ofString());
+
+        var httpRequestTaskDELETE = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTask))
+                .DELETE()
+                .header("auth", getEncodedData(login))
+                .build();
+        httpClient.send(httpRequestTaskDELETE, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> httpResponseDeleted = httpClient.send(httpRequestConditionalGET,
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseNotModified.statusCode()).as("Response status code")
+                .isEqualTo(NOT_MODIFIED.getResponseCode());
+        assertThat(httpResponseDeleted.statusCode()).as("Response status code").isEqualTo(NOT_FOUND.getResponseCode());
+    }
+
+    @Test
+    @Timeout(2)
+    void getTaskEvents_shouldStreamChangesOfUsersTasks() throws IOException, InterruptedException {
+
+        var httpRequestEvents = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/events"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<Stream<String>> httpResponseEvents = httpClient.send(httpRequestEvents,
+                HttpResponse.BodyHandlers.ofLines());
+        Iterator<String> lines = httpResponseEvents.body().iterator();
+        String subscribed = lines.next();
+
+        var httpRequestTaskPOST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("kup mleko", "2021-06-30"))))
+                .header("auth", getEncodedData(login))
+                .build();
+        String idTask = gson.fromJson(httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString()).body(),
+                TaskEntity.class).getId().toString();
+        var httpRequestTaskDELETE = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTask))
+                .DELETE()
+                .header("auth", getEncodedData(login))
+                .build();
+        httpClient.send(httpRequestTaskDELETE, HttpResponse.BodyHandlers.ofString());
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        String sequence = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString()).headers()
+                .firstValue("X-Sequence").orElseThrow();
+
+        assertThat(httpResponseEvents.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseEvents.headers().firstValue("Content-Type")).contains("text/event-stream; charset=utf-8");
+        assertThat(subscribed).isEqualTo(": subscribed");
+        assertThat(lines.next()).isEmpty();
+        String createdId = lines.next();
+        assertThat(createdId).startsWith("id: ");
+        assertThat(lines.next()).isEqualTo("event: created");
+        assertThat(lines.next())
+                .isEqualTo("data: {\"id\":\"" + idTask + "\",\"description\":\"kup mleko\",\"due\":\"2021-06-30\"}");
+        assertThat(lines.next()).isEmpty();
+        assertThat(Long.parseLong(createdId.substring(4))).isLessThan(Long.parseLong(sequence));
+        assertThat(lines.next()).isEqualTo("id: " + sequence);
+        assertThat(lines.next()).isEqualTo("event: deleted");
+        assertThat(lines.next()).isEqualTo("data: {\"id\":\"" + idTask + "\"}");
+        httpResponseEvents.body().close();
+    }
+
+    @Test
+    @Timeout(2)
+    void getTasks_sinceSequence_shouldReturnOnlyChangedAndDeletedTasks() throws IOException, InterruptedException {
+
+        var httpRequestTaskGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        String sequence = httpClient.send(httpRequestTaskGET, HttpResponse.BodyHandlers.ofString()).headers()
+                .firstValue("X-Sequence").orElseThrow();
+        String[] idTasks = new String[3];
+        for (int i = 0; i < idTasks.length; i++) {
+            var httpRequestTaskPOST = HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("zadanie " + i, null))))
+                    .header("auth", getEncodedData(login))
+                    .build();
+            idTasks[i] = gson.fromJson(httpClient.send(httpRequestTaskPOST, HttpResponse.BodyHandlers.ofString())
+                    .body(), TaskEntity.class).getId().toString();
+        }
+        var httpRequestTaskPUT = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTasks[0]))
+                .PUT(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("kup mleko", "2021-06-30"))))
+                .header("auth", getEncodedData(login))
+                .build();
+        httpClient.send(httpRequestTaskPUT, HttpResponse.BodyHandlers.ofString());
+        var httpRequestTaskDELETE = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + idTasks[1]))
+                .DELETE()
+                .header("auth", getEncodedData(login))
+                .build();
+        httpClient.send(httpRequestTaskDELETE, HttpResponse.BodyHandlers.ofString());
+
+        var httpRequestChangesGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task?since=" + sequence))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseChanges = httpClient.send(httpRequestChangesGET,
+                HttpResponse.BodyHandlers.ofString());
+        String nextSequence = httpResponseChanges.headers().firstValue("X-Sequence").orElseThrow();
+        var httpRequestNoChangesGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task?since=" + nextSequence))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseNoChanges = httpClient.send(httpRequestNoChangesGET,
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseChanges.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseChanges.body()).isEqualTo("{\"tasks\":["
+                + "{\"id\":\"" + idTasks[2] + "\",\"description\":\"zadanie 2\"},"
+                + "{\"id\":\"" + idTasks[0] + "\",\"description\":\"kup mleko\",\"due\":\"2021-06-30\"}],"
+                + "\"deleted\":[\"" + idTasks[1] + "\"]}");
+        assertThat(Long.parseLong(nextSequence)).isGreaterThan(Long.parseLong(sequence));
+        assertThat(httpResponseNoChanges.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseNoChanges.body()).isEqualTo("{\"tasks\":[],\"deleted\":[]}");
+        assertThat(httpResponseNoChanges.headers().firstValue("X-Sequence")).contains(nextSequence);
+    }
+
+    @ParameterizedTest(name = "{index}: query={0}")
+    @CsvSource({"since=9223372036854775807,410", "since=1,410", "since=abc,400", "since=1&limit=10,400"})
+    void getTasks_sinceUnknownOrInvalidSequence_shouldReturnError(String query, int statusCode)
+            throws IOException, InterruptedException {
+
+        var httpRequestChangesGET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task?" + query))
+                .GET()
+                .header("auth", getEncodedData(login))
+                .build();
+        HttpResponse<String> httpResponseChanges = httpClient.send(httpRequestChangesGET,
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseChanges.statusCode()).as("Response status code").isEqualTo(statusCode);
+    }
+}
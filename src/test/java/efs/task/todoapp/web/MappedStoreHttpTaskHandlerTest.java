@@ -0,0 +1,10 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.util.WithTaskStore;
+
+/**
+ * Runs the task endpoint tests against {@link efs.task.todoapp.repository.MappedTaskStore}.
+ */
+@WithTaskStore(ServerConfig.TaskStoreMode.MAPPED)
+class MappedStoreHttpTaskHandlerTest extends HttpTaskHandlerTest {
+}
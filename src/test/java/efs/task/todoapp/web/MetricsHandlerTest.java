@@ -0,0 +1,80 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.util.ToDoServerExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static efs.task.todoapp.web.ResponseCodes.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ToDoServerExtension.class)
+class MetricsHandlerTest {
+    private static final String TODO_APP_PATH = "http://localhost:8080/todo/";
+    private static final String AUTH = "bG9naW4=:cGFzc3dvcmQ=";
+
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @Test
+    @Timeout(2)
+    void getMetrics_shouldExposeRequestHistogramsAndGauges() throws IOException, InterruptedException {
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"login\",\"password\":\"password\"}"))
+                .build();
+        var httpRequestTask = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"description\":\"Buy milk\"}"))
+                .header("auth", AUTH)
+                .build();
+        var httpRequestMissingTask = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/237e9877-e79b-12d4-a765-321741963000"))
+                .GET()
+                .header("auth", AUTH)
+                .build();
+        var httpRequestTaskList = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth", AUTH)
+                .build();
+        httpClient.send(httpRequestUser, HttpResponse.BodyHandlers.discarding());
+        httpClient.send(httpRequestTask, HttpResponse.BodyHandlers.discarding());
+        httpClient.send(httpRequestMissingTask, HttpResponse.BodyHandlers.discarding());
+        httpClient.send(httpRequestTaskList, HttpResponse.BodyHandlers.discarding());
+        httpClient.send(httpRequestTaskList, HttpResponse.BodyHandlers.discarding());
+
+        var httpRequestMetrics = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/metrics"))
+                .GET()
+                .build();
+        HttpResponse<String> httpResponseMetrics = httpClient.send(httpRequestMetrics,
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(httpResponseMetrics.statusCode()).as("Response status code").isEqualTo(OK.getResponseCode());
+        assertThat(httpResponseMetrics.body())
+                .contains("todo_http_request_duration_seconds_count{endpoint=\"create_user\",status=\"201\"} 1\n")
+                .contains("todo_http_request_duration_seconds_count{endpoint=\"create_task\",status=\"201\"} 1\n")
+                .contains("todo_http_request_duration_seconds_count{endpoint=\"get_task\",status=\"404\"} 1\n")
+                .contains("todo_http_request_duration_seconds_bucket{endpoint=\"get_task\",status=\"404\",le=\"+Inf\"} 1\n")
+                .contains("todo_users 1\n")
+                .contains("todo_tasks 1\n")
+                .contains("todo_tasks_per_user_bucket{le=\"1\"} 1\n")
+                .contains("todo_executor_in_flight 1\n")
+                .contains("# TYPE todo_task_list_cache_hits_total counter\n")
+                .contains("todo_task_list_cache_hits_total 1\n")
+                .contains("todo_task_list_cache_misses_total 1\n")
+                .contains("todo_task_list_cache_entries 1\n");
+    }
+}
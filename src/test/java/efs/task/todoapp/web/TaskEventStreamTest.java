@@ -0,0 +1,69 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.TaskEvent;
+import efs.task.todoapp.service.TaskEventBus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskEventStreamTest {
+
+    @Test
+    @Timeout(10)
+    void open_subscriberNotReading_shouldNotDelayEventsOfOtherSubscribers() throws Exception {
+        TaskEventBus bus = new TaskEventBus();
+        TaskEventStream events = new TaskEventStream(bus, 1, 1024, 10, 15, 200);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/events", exchange -> events.open(exchange, "janKowalski"));
+        server.start();
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(server.getAddress());
+            stalled.getOutputStream().write("GET /events HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + server.getAddress().getPort() + "/events"))
+                    .GET()
+                    .build();
+            Iterator<String> lines = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines())
+                    .body().iterator();
+            while (events.size() < 2) {
+                Thread.sleep(10);
+            }
+
+            TaskEntity task = new TaskEntity("x".repeat(60_000), null);
+            task.setId(UUID.randomUUID());
+            task.setOwner("janKowalski");
+            for (int i = 0; i < 200; i++) {
+                bus.publish("janKowalski", new TaskEvent(TaskEvent.Type.UPDATED, task.getId(), task, i));
+            }
+            long published = System.nanoTime();
+            bus.publish("janKowalski", new TaskEvent(TaskEvent.Type.DELETED, task.getId(), null, 200));
+            String line;
+            while (!(line = lines.next()).equals("id: 200")) {
+                assertThat(line).doesNotStartWith("event: deleted");
+            }
+
+            assertThat(System.nanoTime() - published).isLessThan(5_000_000_000L);
+            assertThat(lines.next()).isEqualTo("event: deleted");
+            assertThat(events.getDropped()).isEqualTo(1);
+            assertThat(events.size()).isEqualTo(1);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebServerFactoryTest {
+    private static final String TODO_APP_PATH = "http://localhost:8080/todo/";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Timeout(20)
+    void stop_shouldEndEveryThreadStartedByServer() throws Exception {
+        Set<Thread> before = Thread.getAllStackTraces().keySet();
+        HttpServer server = WebServerFactory.createServer(new ServerConfig(ServerConfig.ExecutorMode.FIXED, 2, 8,
+                directory, 300, ServerConfig.TaskStoreMode.MAPPED, 3600));
+        server.start();
+        List<Thread> started;
+        try {
+            Gson gson = new Gson();
+            HttpClient httpClient = HttpClient.newHttpClient();
+            httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "user"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new UserEntity("login", "password"))))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Base64.Encoder encoder = Base64.getEncoder();
+            String auth = encoder.encodeToString("login".getBytes(StandardCharsets.UTF_8)) + ":"
+                    + encoder.encodeToString("password".getBytes(StandardCharsets.UTF_8));
+            Iterator<String> lines = httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task/events"))
+                    .GET()
+                    .header("auth", auth)
+                    .build(), HttpResponse.BodyHandlers.ofLines()).body().iterator();
+            assertThat(lines.next()).isEqualTo(": subscribed");
+            httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create(TODO_APP_PATH + "task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new TaskEntity("kup mleko", null))))
+                    .header("auth", auth)
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            String line;
+            do {
+                line = lines.next();
+            } while (!line.startsWith("id: "));
+            started = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> !before.contains(thread) && thread.getName().startsWith("todo-"))
+                    .collect(Collectors.toList());
+        } finally {
+            server.stop(0);
+        }
+
+        assertThat(started).extracting(Thread::getName)
+                .contains("todo-wal-flusher", "todo-snapshot", "todo-tombstones", "todo-events-1");
+        long deadline = System.currentTimeMillis() + 5000;
+        List<String> alive = new ArrayList<>();
+        for (Thread thread : started) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (thread.isAlive()) {
+                alive.add(thread.getName());
+            }
+        }
+        assertThat(alive).isEmpty();
+    }
+}